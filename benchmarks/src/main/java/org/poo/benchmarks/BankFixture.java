@@ -0,0 +1,146 @@
+package org.poo.benchmarks;
+
+import org.poo.fileio.CommandInput;
+import org.poo.main.accounts.Account;
+import org.poo.main.bank.BankSystem;
+import org.poo.main.cards.Card;
+import org.poo.main.exchange_rate.CurrencyTable;
+import org.poo.main.exchange_rate.ExchangeRate;
+import org.poo.main.exchange_rate.ExchangeRateTable;
+import org.poo.main.io.OutputSink;
+import org.poo.main.user.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A bank populated through its own commands, shared by the benchmarks.
+ * Every user gets one funded account in one of the fixture's currencies and one card,
+ * so the benchmarks can address them by index.
+ */
+public final class BankFixture {
+    static final String[] CURRENCIES = {"RON", "EUR", "USD", "GBP", "JPY", "CAD"};
+    static final String[] COMMERCIANTS = {"Amazon", "Emag", "Lidl", "Kaufland", "Netflix",
+        "Spotify", "Uber", "Glovo"};
+
+    private static final double INITIAL_FUNDS = 100_000;
+    private static final int SAVINGS_EVERY = 10;
+
+    private final BankSystem bankSystem = new BankSystem();
+    private final List<ExchangeRate> exchangeRates = new ArrayList<>();
+    private final ExchangeRateTable exchangeRateTable;
+    private final String[] emails;
+    private final String[] ibans;
+    private final String[] cards;
+    private int timestamp;
+
+    /**
+     * Builds a bank with the given number of users.
+     *
+     * @param users the number of users
+     * @param seed  the seed of the random choices
+     */
+    public BankFixture(final int users, final long seed) {
+        Random random = new Random(seed);
+        CurrencyTable currencies = bankSystem.getCurrencies();
+
+        addRate(currencies, "EUR", "RON", 4.97);
+        addRate(currencies, "USD", "EUR", 0.92);
+        addRate(currencies, "GBP", "USD", 1.27);
+        addRate(currencies, "JPY", "RON", 0.031);
+        addRate(currencies, "CAD", "USD", 0.73);
+        exchangeRateTable = ExchangeRateTable.of(exchangeRates, currencies);
+
+        emails = new String[users];
+        ibans = new String[users];
+        cards = new String[users];
+        OutputSink sink = new DiscardingSink();
+
+        for (int i = 0; i < users; i++) {
+            emails[i] = "user" + i + "@bank.com";
+            User user = new User("First" + i, "Last" + i, emails[i]);
+            bankSystem.addUser(user);
+
+            CommandInput addAccount = command("addAccount");
+            addAccount.setEmail(emails[i]);
+            addAccount.setCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+            if (i % SAVINGS_EVERY == 0) {
+                addAccount.setAccountType("savings");
+                addAccount.setInterestRate(0.05);
+            } else {
+                addAccount.setAccountType("classic");
+            }
+            bankSystem.processCommand(addAccount, sink);
+
+            Account account = user.getAccounts().get(0);
+            ibans[i] = account.getIban();
+
+            CommandInput createCard = command("createCard");
+            createCard.setEmail(emails[i]);
+            createCard.setAccount(ibans[i]);
+            bankSystem.processCommand(createCard, sink);
+
+            List<Card> accountCards = account.getCards();
+            cards[i] = accountCards.get(accountCards.size() - 1).getCardNumber();
+
+            CommandInput addFunds = command("addFunds");
+            addFunds.setAccount(ibans[i]);
+            addFunds.setAmount(INITIAL_FUNDS);
+            bankSystem.processCommand(addFunds, sink);
+        }
+    }
+
+    /**
+     * Creates a command with the next timestamp of the fixture.
+     *
+     * @param name the name of the command
+     * @return the command
+     */
+    public CommandInput command(final String name) {
+        CommandInput command = new CommandInput();
+        command.setCommand(name);
+        command.setTimestamp(++timestamp);
+        return command;
+    }
+
+    public BankSystem getBankSystem() {
+        return bankSystem;
+    }
+
+    public ExchangeRateTable getExchangeRateTable() {
+        return exchangeRateTable;
+    }
+
+    public CurrencyTable getCurrencies() {
+        return bankSystem.getCurrencies();
+    }
+
+    public int getUsers() {
+        return emails.length;
+    }
+
+    public String getEmail(final int user) {
+        return emails[user];
+    }
+
+    public String getIban(final int user) {
+        return ibans[user];
+    }
+
+    public String getCard(final int user) {
+        return cards[user];
+    }
+
+    public int getTimestamp() {
+        return timestamp;
+    }
+
+    private void addRate(final CurrencyTable currencies, final String from, final String to,
+                         final double rate) {
+        ExchangeRate exchangeRate =
+                new ExchangeRate(currencies.intern(from), currencies.intern(to), rate);
+        exchangeRates.add(exchangeRate);
+        bankSystem.addExchangeRate(exchangeRate);
+    }
+}
@@ -0,0 +1,68 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.fileio.CommandInput;
+import org.poo.main.io.OutputSink;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Macro benchmark driving BankSystem.processCommands with a realistic command mix.
+ * Every invocation runs a fresh batch with new timestamps on a bank of the given size,
+ * and the score is the number of commands per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class CommandEngineBenchmark {
+    private static final int BATCH = 10_000;
+
+    @Param({"10000", "100000", "1000000"})
+    private int users;
+
+    private BankFixture fixture;
+    private OutputSink output;
+    private CommandInput[] batch;
+    private long seed;
+
+    /**
+     * Builds the bank once per run.
+     */
+    @Setup(Level.Trial)
+    public void createBank() {
+        fixture = new BankFixture(users, 1);
+        output = new DiscardingSink();
+    }
+
+    /**
+     * Generates the next batch, outside of the measured time.
+     */
+    @Setup(Level.Invocation)
+    public void createBatch() {
+        batch = CommandMix.generate(fixture, BATCH, seed++);
+    }
+
+    /**
+     * Runs one batch of commands.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void processCommands() {
+        fixture.getBankSystem().processCommands(batch, output);
+    }
+}
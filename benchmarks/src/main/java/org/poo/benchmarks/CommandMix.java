@@ -0,0 +1,101 @@
+package org.poo.benchmarks;
+
+import org.poo.fileio.CommandInput;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator of a realistic batch of commands over a BankFixture.
+ * Payments dominate, followed by transfers and deposits, with a tail of card checks,
+ * limit changes, split payments and reports over a recent window.
+ */
+public final class CommandMix {
+    private static final int PAY_ONLINE = 40;
+    private static final int SEND_MONEY = 60;
+    private static final int ADD_FUNDS = 75;
+    private static final int CHECK_CARD = 80;
+    private static final int MINIMUM_BALANCE = 85;
+    private static final int SPLIT_PAYMENT = 90;
+    private static final int REPORT = 95;
+    private static final int PERCENT = 100;
+
+    private static final int MAX_PAYMENT = 50;
+    private static final int SPLIT_ACCOUNTS = 3;
+    private static final int REPORT_WINDOW = 1_000;
+
+    private CommandMix() {
+    }
+
+    /**
+     * Generates a batch of commands with increasing timestamps.
+     *
+     * @param fixture the bank the commands run on
+     * @param count   the number of commands
+     * @param seed    the seed of the random choices
+     * @return the commands, in input order
+     */
+    public static CommandInput[] generate(final BankFixture fixture, final int count,
+                                          final long seed) {
+        Random random = new Random(seed);
+        CommandInput[] commands = new CommandInput[count];
+        for (int i = 0; i < count; i++) {
+            commands[i] = next(fixture, random);
+        }
+        return commands;
+    }
+
+    private static CommandInput next(final BankFixture fixture, final Random random) {
+        int user = random.nextInt(fixture.getUsers());
+        int dice = random.nextInt(PERCENT);
+        CommandInput command;
+
+        if (dice < PAY_ONLINE) {
+            command = fixture.command("payOnline");
+            command.setEmail(fixture.getEmail(user));
+            command.setCardNumber(fixture.getCard(user));
+            command.setAmount(1 + random.nextInt(MAX_PAYMENT));
+            command.setCurrency(currency(random));
+            command.setCommerciant(
+                    BankFixture.COMMERCIANTS[random.nextInt(BankFixture.COMMERCIANTS.length)]);
+            command.setDescription("payment");
+        } else if (dice < SEND_MONEY) {
+            command = fixture.command("sendMoney");
+            command.setEmail(fixture.getEmail(user));
+            command.setAccount(fixture.getIban(user));
+            command.setReceiver(fixture.getIban(random.nextInt(fixture.getUsers())));
+            command.setAmount(1 + random.nextInt(MAX_PAYMENT));
+            command.setDescription("transfer");
+        } else if (dice < ADD_FUNDS) {
+            command = fixture.command("addFunds");
+            command.setAccount(fixture.getIban(user));
+            command.setAmount(1 + random.nextInt(MAX_PAYMENT));
+        } else if (dice < CHECK_CARD) {
+            command = fixture.command("checkCardStatus");
+            command.setCardNumber(fixture.getCard(user));
+        } else if (dice < MINIMUM_BALANCE) {
+            command = fixture.command("setMinimumBalance");
+            command.setAccount(fixture.getIban(user));
+            command.setAmount(random.nextInt(MAX_PAYMENT));
+        } else if (dice < SPLIT_PAYMENT) {
+            command = fixture.command("splitPayment");
+            String[] accounts = new String[SPLIT_ACCOUNTS];
+            for (int i = 0; i < accounts.length; i++) {
+                accounts[i] = fixture.getIban(random.nextInt(fixture.getUsers()));
+            }
+            command.setAccounts(List.of(accounts));
+            command.setAmount(SPLIT_ACCOUNTS * (1 + random.nextInt(MAX_PAYMENT)));
+            command.setCurrency(currency(random));
+        } else {
+            command = fixture.command(dice < REPORT ? "report" : "spendingsReport");
+            command.setAccount(fixture.getIban(user));
+            command.setStartTimestamp(Math.max(0, command.getTimestamp() - REPORT_WINDOW));
+            command.setEndTimestamp(command.getTimestamp());
+        }
+        return command;
+    }
+
+    private static String currency(final Random random) {
+        return BankFixture.CURRENCIES[random.nextInt(BankFixture.CURRENCIES.length)];
+    }
+}
@@ -0,0 +1,54 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.main.io.OutputSink;
+import org.poo.main.io.ResultWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Output sink serializing every result to a stream that drops the bytes, so the
+ * benchmarks pay for writing the output without keeping it.
+ */
+public final class DiscardingSink implements OutputSink {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final JsonGenerator generator;
+
+    public DiscardingSink() {
+        try {
+            generator = OBJECT_MAPPER.writerWithDefaultPrettyPrinter()
+                    .createGenerator(OutputStream.nullOutputStream());
+            generator.writeStartArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(final JsonNode result) {
+        try {
+            generator.writeTree(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(final ResultWriter writer) {
+        try {
+            writer.writeTo(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
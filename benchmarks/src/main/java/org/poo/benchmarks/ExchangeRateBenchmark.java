@@ -0,0 +1,77 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.accounts.Account;
+import org.poo.main.exchange_rate.Currency;
+import org.poo.main.exchange_rate.ExchangeRateTable;
+import org.poo.main.tools.Tools;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro benchmark of the exchange-rate lookups and of the amount conversion used by
+ * every payment.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExchangeRateBenchmark {
+    private static final int PAIRS = 1024;
+    private static final int MASK = PAIRS - 1;
+    private static final long AMOUNT = 12_345_678;
+
+    private ExchangeRateTable table;
+    private final Currency[] from = new Currency[PAIRS];
+    private final Currency[] to = new Currency[PAIRS];
+    private final Account[] accounts = new Account[PAIRS];
+    private int next;
+
+    /**
+     * Picks random currency pairs and accounts.
+     */
+    @Setup
+    public void setUp() {
+        BankFixture fixture = new BankFixture(PAIRS, 1);
+        table = fixture.getExchangeRateTable();
+
+        Random random = new Random(2);
+        for (int i = 0; i < PAIRS; i++) {
+            String[] codes = BankFixture.CURRENCIES;
+            from[i] = fixture.getCurrencies().intern(codes[random.nextInt(codes.length)]);
+            to[i] = fixture.getCurrencies().intern(codes[random.nextInt(codes.length)]);
+            accounts[i] = fixture.getBankSystem().getRegistry()
+                    .findAccountByIBAN(fixture.getIban(i));
+        }
+    }
+
+    /**
+     * @return the rate between the next pair of currencies
+     */
+    @Benchmark
+    public double getRate() {
+        int i = next++ & MASK;
+        return table.getRate(from[i], to[i]);
+    }
+
+    /**
+     * @return the next amount converted to an account's currency
+     */
+    @Benchmark
+    public long calculateFinalAmount() {
+        int i = next++ & MASK;
+        return Tools.calculateFinalAmount(accounts[i], AMOUNT, table, from[i]);
+    }
+}
@@ -0,0 +1,80 @@
+package org.poo.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Records every latency of one kind of command and reports exact percentiles.
+ * Latencies are kept in a growing array of nanoseconds, which costs eight bytes per
+ * command and keeps the tail exact, unlike a bucketed histogram.
+ */
+public final class LatencyRecorder {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] latencies = new long[INITIAL_CAPACITY];
+    private int count;
+    private long total;
+    private boolean sorted = true;
+
+    /**
+     * @param nanos the latency of one command, in nanoseconds
+     */
+    public void record(final long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        total += nanos;
+        sorted = false;
+    }
+
+    /**
+     * Adds every latency of another recorder to this one.
+     *
+     * @param other the recorder to merge
+     */
+    public void merge(final LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.latencies[i]);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return the mean latency, in nanoseconds
+     */
+    public double mean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Returns a latency percentile, using the nearest rank.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency, in nanoseconds, or 0 if nothing was recorded
+     */
+    public long percentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(latencies, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return latencies[Math.max(0, Math.min(count, rank) - 1)];
+    }
+
+    /**
+     * @return the largest latency, in nanoseconds
+     */
+    public long max() {
+        return percentile(100);
+    }
+}
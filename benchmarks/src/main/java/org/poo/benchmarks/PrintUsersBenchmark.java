@@ -0,0 +1,87 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.fileio.CommandInput;
+import org.poo.main.bank.BankSystem;
+import org.poo.main.user.User;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro benchmark of printUsers, on a bank where one user changes between two prints
+ * and on one where every user does, and of printUsersDelta after one change.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrintUsersBenchmark {
+    @Param({"1000", "100000"})
+    private int users;
+
+    private BankFixture fixture;
+    private BankSystem bankSystem;
+    private DiscardingSink sink;
+    private CommandInput printUsers;
+    private CommandInput printUsersDelta;
+    private CommandInput addFunds;
+    private int next;
+
+    /**
+     * Builds the bank and prints it once.
+     */
+    @Setup
+    public void setUp() {
+        fixture = new BankFixture(users, 1);
+        bankSystem = fixture.getBankSystem();
+        sink = new DiscardingSink();
+        printUsers = fixture.command("printUsers");
+        printUsersDelta = fixture.command("printUsersDelta");
+        addFunds = fixture.command("addFunds");
+        addFunds.setAmount(1);
+        bankSystem.processCommand(printUsers, sink);
+    }
+
+    /**
+     * Deposits to the account of the next user, then prints all the users.
+     */
+    @Benchmark
+    public void oneUserChanged() {
+        addFunds.setAccount(fixture.getIban(next++ % users));
+        bankSystem.processCommand(addFunds, sink);
+        bankSystem.processCommand(printUsers, sink);
+    }
+
+    /**
+     * Deposits to the account of the next user, then prints only that change.
+     */
+    @Benchmark
+    public void oneUserChangedDelta() {
+        addFunds.setAccount(fixture.getIban(next++ % users));
+        bankSystem.processCommand(addFunds, sink);
+        bankSystem.processCommand(printUsersDelta, sink);
+    }
+
+    /**
+     * Prints all the users after every one of them changed.
+     */
+    @Benchmark
+    public void allUsersChanged() {
+        for (User user : bankSystem.getUsers()) {
+            user.markChanged();
+        }
+        bankSystem.processCommand(printUsers, sink);
+    }
+}
@@ -0,0 +1,93 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.accounts.Account;
+import org.poo.main.bank.BankRegistry;
+import org.poo.main.bank.CardEntry;
+import org.poo.main.user.User;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro benchmark of the registry lookups that replaced the linear finders of Tools:
+ * users by email, accounts and owners by IBAN, and cards by number.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Thread)
+public class RegistryBenchmark {
+    private static final int KEYS = 4096;
+    private static final int MASK = KEYS - 1;
+
+    @Param({"10000", "1000000"})
+    private int users;
+
+    private BankRegistry registry;
+    private final String[] emails = new String[KEYS];
+    private final String[] ibans = new String[KEYS];
+    private final String[] cards = new String[KEYS];
+    private int next;
+
+    /**
+     * Builds the bank and picks the keys to look up.
+     */
+    @Setup
+    public void setUp() {
+        BankFixture fixture = new BankFixture(users, 1);
+        registry = fixture.getBankSystem().getRegistry();
+
+        Random random = new Random(2);
+        for (int i = 0; i < KEYS; i++) {
+            int user = random.nextInt(users);
+            emails[i] = fixture.getEmail(user);
+            ibans[i] = fixture.getIban(user);
+            cards[i] = fixture.getCard(user);
+        }
+    }
+
+    /**
+     * @return the next user found by email
+     */
+    @Benchmark
+    public User findUserByEmail() {
+        return registry.findUserByEmail(emails[next++ & MASK]);
+    }
+
+    /**
+     * @return the next account found by IBAN
+     */
+    @Benchmark
+    public Account findAccountByIBAN() {
+        return registry.findAccountByIBAN(ibans[next++ & MASK]);
+    }
+
+    /**
+     * @return the owner of the next account
+     */
+    @Benchmark
+    public User findUserByAccount() {
+        return registry.findUserByAccount(ibans[next++ & MASK]);
+    }
+
+    /**
+     * @return the next card found by number
+     */
+    @Benchmark
+    public CardEntry findCard() {
+        return registry.findCard(cards[next++ & MASK]);
+    }
+}
@@ -0,0 +1,149 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.fileio.CommandInput;
+import org.poo.main.bank.BankRegistry;
+import org.poo.main.bank.BankSystem;
+import org.poo.main.exchange_rate.ExchangeRateTable;
+import org.poo.main.tools.Tools;
+import org.poo.main.transactions.ReportTransactionFilter;
+import org.poo.main.transactions.SpendingsTransactionFilter;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro benchmark of report and spendingsReport, over the whole history of an account
+ * and over a narrow window at its end, and of a report command repeated on an unchanged
+ * account, which is served from the report cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReportBenchmark {
+    private static final int USERS = 16;
+    private static final int MAX_PAYMENT = 50;
+    private static final int WINDOW = 100;
+
+    @Param({"1000", "100000"})
+    private int transactions;
+
+    private BankSystem bankSystem;
+    private DiscardingSink sink;
+    private BankRegistry registry;
+    private ExchangeRateTable exchangeRates;
+    private CommandInput fullReport;
+    private CommandInput windowReport;
+    private CommandInput fullSpendings;
+    private CommandInput windowSpendings;
+
+    /**
+     * Gives the first user of a small bank the requested number of card payments.
+     */
+    @Setup
+    public void setUp() {
+        BankFixture fixture = new BankFixture(USERS, 1);
+        sink = new DiscardingSink();
+        Random random = new Random(2);
+
+        for (int i = 0; i < transactions; i++) {
+            CommandInput command = fixture.command("payOnline");
+            command.setEmail(fixture.getEmail(0));
+            command.setCardNumber(fixture.getCard(0));
+            command.setAmount(1 + random.nextInt(MAX_PAYMENT));
+            command.setCurrency(BankFixture.CURRENCIES[
+                    random.nextInt(BankFixture.CURRENCIES.length)]);
+            command.setCommerciant(BankFixture.COMMERCIANTS[
+                    random.nextInt(BankFixture.COMMERCIANTS.length)]);
+            fixture.getBankSystem().processCommand(command, sink);
+        }
+
+        bankSystem = fixture.getBankSystem();
+        registry = bankSystem.getRegistry();
+        exchangeRates = fixture.getExchangeRateTable();
+
+        int end = fixture.getTimestamp();
+        fullReport = report(fixture, "report", 0, end);
+        windowReport = report(fixture, "report", end - WINDOW, end);
+        fullSpendings = report(fixture, "spendingsReport", 0, end);
+        windowSpendings = report(fixture, "spendingsReport", end - WINDOW, end);
+    }
+
+    /**
+     * @return the report over the whole history
+     */
+    @Benchmark
+    public ObjectNode fullReport() {
+        return Tools.generateReportData(fullReport, new ReportTransactionFilter(), false,
+                registry, exchangeRates);
+    }
+
+    /**
+     * @return the report over the last timestamps
+     */
+    @Benchmark
+    public ObjectNode windowReport() {
+        return Tools.generateReportData(windowReport, new ReportTransactionFilter(), false,
+                registry, exchangeRates);
+    }
+
+    /**
+     * @return the spendings report over the whole history
+     */
+    @Benchmark
+    public ObjectNode fullSpendingsReport() {
+        return Tools.generateReportData(fullSpendings, new SpendingsTransactionFilter(), true,
+                registry, exchangeRates);
+    }
+
+    /**
+     * @return the spendings report over the last timestamps
+     */
+    @Benchmark
+    public ObjectNode windowSpendingsReport() {
+        return Tools.generateReportData(windowSpendings, new SpendingsTransactionFilter(),
+                true, registry, exchangeRates);
+    }
+
+    /**
+     * Runs the report over the whole history as a command, which builds it once and then
+     * serves it from the cache.
+     */
+    @Benchmark
+    public void cachedFullReport() {
+        bankSystem.processCommand(fullReport, sink);
+    }
+
+    /**
+     * Runs the report over the whole history as a command after marking the account as
+     * modified, so it is rebuilt every time.
+     */
+    @Benchmark
+    public void uncachedFullReport() {
+        registry.findAccountByIBAN(fullReport.getAccount()).bumpVersion();
+        bankSystem.processCommand(fullReport, sink);
+    }
+
+    private static CommandInput report(final BankFixture fixture, final String name,
+                                       final int start, final int end) {
+        CommandInput command = fixture.command(name);
+        command.setAccount(fixture.getIban(0));
+        command.setStartTimestamp(start);
+        command.setEndTimestamp(end);
+        return command;
+    }
+}
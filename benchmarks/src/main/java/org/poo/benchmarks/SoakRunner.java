@@ -0,0 +1,155 @@
+package org.poo.benchmarks;
+
+import org.poo.fileio.CommandInput;
+import org.poo.main.bank.BankSystem;
+import org.poo.main.bank.CommandProcessor;
+import org.poo.main.io.JsonGeneratorSink;
+import org.poo.main.io.OutputSink;
+import org.poo.main.io.StreamingInputLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Replays an input file, usually one written by the WorkloadGenerator, and reports the
+ * throughput together with the p50/p99/p999 latency of every command.
+ *
+ * Every pass runs the file on a fresh BankSystem. Warm-up passes only let the JIT
+ * settle, while the measured passes are merged into the final table. With an interval,
+ * the throughput of every window of that many commands is printed as the pass goes, so
+ * a slowdown as the bank grows shows up as a falling series.
+ *
+ * Usage: {@code java -cp benchmarks.jar org.poo.benchmarks.SoakRunner big.json
+ * [--warmup 1] [--passes 3] [--interval 100000] [--out results.json]}.
+ */
+public final class SoakRunner {
+    private static final double NANOS_PER_MICRO = 1_000;
+    private static final double NANOS_PER_SECOND = 1_000_000_000;
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    private final File input;
+    private int warmupPasses;
+    private int passes = 1;
+    private int interval;
+    private File output;
+
+    private SoakRunner(final File input) {
+        this.input = input;
+    }
+
+    /**
+     * @param args the input file, followed by the options
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: SoakRunner <input> [--warmup n]"
+                    + " [--passes n] [--interval n] [--out file]");
+        }
+        SoakRunner runner = new SoakRunner(new File(args[0]));
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--warmup" -> runner.warmupPasses = Integer.parseInt(args[i + 1]);
+                case "--passes" -> runner.passes = Integer.parseInt(args[i + 1]);
+                case "--interval" -> runner.interval = Integer.parseInt(args[i + 1]);
+                case "--out" -> runner.output = new File(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        runner.run();
+    }
+
+    private void run() throws IOException {
+        for (int i = 0; i < warmupPasses; i++) {
+            runPass("warmup " + (i + 1));
+        }
+
+        Map<String, LatencyRecorder> merged = new TreeMap<>();
+        long commands = 0;
+        long elapsed = 0;
+        for (int i = 0; i < passes; i++) {
+            long start = System.nanoTime();
+            Map<String, LatencyRecorder> recorders = runPass("pass " + (i + 1));
+            elapsed += System.nanoTime() - start;
+
+            for (Map.Entry<String, LatencyRecorder> entry : recorders.entrySet()) {
+                merged.computeIfAbsent(entry.getKey(), name -> new LatencyRecorder())
+                        .merge(entry.getValue());
+                commands += entry.getValue().getCount();
+            }
+        }
+
+        System.out.printf("%nMeasured %d commands in %.2f s, %.0f commands/s%n",
+                commands, elapsed / NANOS_PER_SECOND, commands * NANOS_PER_SECOND / elapsed);
+        printTable(merged);
+    }
+
+    /**
+     * Runs the input once on a fresh bank.
+     *
+     * @return the latencies of every command, by name
+     */
+    private Map<String, LatencyRecorder> runPass(final String label) throws IOException {
+        BankSystem bankSystem = new BankSystem();
+        Map<String, LatencyRecorder> recorders = new TreeMap<>();
+        long start = System.nanoTime();
+
+        try (OutputSink sink = output == null
+                ? new DiscardingSink() : JsonGeneratorSink.open(output)) {
+            CommandProcessor serial = bankSystem.serialProcessor(sink);
+            StreamingInputLoader.load(input, bankSystem, new CommandProcessor() {
+                private long count;
+                private long windowStart = System.nanoTime();
+
+                @Override
+                public void processCommand(final CommandInput command) {
+                    long before = System.nanoTime();
+                    serial.processCommand(command);
+                    long after = System.nanoTime();
+                    recorders.computeIfAbsent(command.getCommand(),
+                            name -> new LatencyRecorder()).record(after - before);
+
+                    if (interval > 0 && ++count % interval == 0) {
+                        System.out.printf("  %s: commands %d-%d, %.0f commands/s%n", label,
+                                count - interval + 1, count,
+                                interval * NANOS_PER_SECOND / (after - windowStart));
+                        windowStart = after;
+                    }
+                }
+
+                @Override
+                public void finishProcessing() {
+                    serial.finishProcessing();
+                }
+            });
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long commands = recorders.values().stream().mapToLong(LatencyRecorder::getCount).sum();
+        System.out.printf("%s: %d commands in %.2f s, %.0f commands/s%n", label, commands,
+                elapsed / NANOS_PER_SECOND, commands * NANOS_PER_SECOND / elapsed);
+        return recorders;
+    }
+
+    private static void printTable(final Map<String, LatencyRecorder> recorders) {
+        LatencyRecorder all = new LatencyRecorder();
+        System.out.printf("%-20s %10s %10s %10s %10s %10s %10s%n", "command (us)", "count",
+                "mean", "p50", "p99", "p999", "max");
+        for (Map.Entry<String, LatencyRecorder> entry : recorders.entrySet()) {
+            printRow(entry.getKey(), entry.getValue());
+            all.merge(entry.getValue());
+        }
+        printRow("all", all);
+    }
+
+    private static void printRow(final String name, final LatencyRecorder recorder) {
+        System.out.printf("%-20s %10d %10.1f", name, recorder.getCount(),
+                recorder.mean() / NANOS_PER_MICRO);
+        for (double percentile : PERCENTILES) {
+            System.out.printf(" %10.1f", recorder.percentile(percentile) / NANOS_PER_MICRO);
+        }
+        System.out.printf(" %10.1f%n", recorder.max() / NANOS_PER_MICRO);
+    }
+}
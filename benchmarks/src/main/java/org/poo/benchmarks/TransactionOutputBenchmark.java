@@ -0,0 +1,131 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.fileio.CommandInput;
+import org.poo.main.transactions.Transaction;
+import org.poo.main.transactions.TransactionStore;
+import org.poo.main.tools.Tools;
+import org.poo.main.user.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro benchmark of the serialization of a user's transactions, both as a tree, like
+ * the reports build it, and streamed, like printTransactions writes it. The last page of
+ * a paged printTransactions is timed as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransactionOutputBenchmark {
+    private static final int USERS = 16;
+    private static final int MAX_PAYMENT = 50;
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"10", "1000", "100000"})
+    private int transactions;
+
+    private List<Transaction> history;
+    private JsonGenerator generator;
+    private BankFixture fixture;
+    private DiscardingSink sink;
+    private CommandInput pageCommand;
+
+    /**
+     * Gives the first user of a small bank the requested number of transactions, mixing
+     * payments with transfers to the other users.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        fixture = new BankFixture(USERS, 1);
+        sink = new DiscardingSink();
+        Random random = new Random(2);
+
+        for (int i = 0; i < transactions; i++) {
+            CommandInput command;
+            if (i % 2 == 0) {
+                command = fixture.command("payOnline");
+                command.setEmail(fixture.getEmail(0));
+                command.setCardNumber(fixture.getCard(0));
+                command.setCurrency(BankFixture.CURRENCIES[
+                        random.nextInt(BankFixture.CURRENCIES.length)]);
+                command.setCommerciant(BankFixture.COMMERCIANTS[
+                        random.nextInt(BankFixture.COMMERCIANTS.length)]);
+            } else {
+                command = fixture.command("sendMoney");
+                command.setEmail(fixture.getEmail(0));
+                command.setAccount(fixture.getIban(0));
+                command.setReceiver(fixture.getIban(1 + random.nextInt(USERS - 1)));
+                command.setDescription("transfer");
+            }
+            command.setAmount(1 + random.nextInt(MAX_PAYMENT));
+            fixture.getBankSystem().processCommand(command, sink);
+        }
+
+        User user = fixture.getBankSystem().getRegistry().findUserByEmail(fixture.getEmail(0));
+        history = user.getTransactions();
+        pageCommand = fixture.command("printTransactions");
+        pageCommand.setEmail(fixture.getEmail(0));
+        pageCommand.setLimit(PAGE_SIZE);
+        // The last page: the cursor is taken at the row before it
+        int beforeLastPage = history.size() - PAGE_SIZE - 1;
+        pageCommand.setCursor(beforeLastPage < 0 ? TransactionStore.START_CURSOR
+                : user.getTransactionStore().cursorOf(beforeLastPage));
+        generator = new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .createGenerator(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Closes the generator.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        generator.close();
+    }
+
+    /**
+     * @return the transactions as a tree
+     */
+    @Benchmark
+    public ArrayNode getTransactions() {
+        return Tools.getTransactions(history);
+    }
+
+    /**
+     * Streams the transactions to a discarding generator.
+     */
+    @Benchmark
+    public void writeTransactions() throws IOException {
+        Tools.writeTransactions(generator, history);
+        generator.flush();
+    }
+
+    /**
+     * Prints the last page of the transactions, of a fixed size whatever the history.
+     */
+    @Benchmark
+    public void printTransactionsPage() {
+        fixture.getBankSystem().processCommand(pageCommand, sink);
+    }
+}
@@ -0,0 +1,476 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.UserInput;
+import org.poo.main.accounts.Account;
+import org.poo.main.bank.BankRegistry;
+import org.poo.main.bank.BankSystem;
+import org.poo.main.bank.CardEntry;
+import org.poo.main.cards.Card;
+import org.poo.main.exchange_rate.ExchangeRate;
+import org.poo.main.io.OutputSink;
+import org.poo.main.user.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Writes a valid input document of any size, following a WorkloadSpec.
+ *
+ * The document lists the users and the exchange rates, then a setup phase opening,
+ * funding and carding every account, then the weighted mix of commands. The generated
+ * IBANs and card numbers depend on every earlier command, so the generator runs the
+ * commands on its own BankSystem while writing them and picks its targets among the
+ * accounts and cards that really exist at that point. A share of the commands targets
+ * unknown accounts, cards or users on purpose, to exercise the error paths.
+ *
+ * Usage: {@code java -cp benchmarks.jar org.poo.benchmarks.WorkloadGenerator --users
+ * 100000 --commands 1000000 --out big.json}, see WorkloadSpec for every option.
+ */
+public final class WorkloadGenerator {
+    private static final String[] CODES = {"RON", "EUR", "USD", "GBP", "JPY", "CAD", "CHF",
+        "AUD", "SEK", "NOK", "PLN", "HUF", "CZK", "DKK", "CNY", "INR"};
+    private static final String[] COMMERCIANTS = {"Amazon", "Emag", "Lidl", "Kaufland",
+        "Netflix", "Spotify", "Uber", "Glovo", "Zara", "Bolt"};
+    private static final int ALPHABET = 26;
+
+    // Commands that only read the bank, so the generator does not need to run them
+    private static final Set<String> READ_ONLY =
+            Set.of("printUsers", "printTransactions", "report", "spendingsReport");
+
+    private static final String UNKNOWN_IBAN = "RO00POOB0000000000000000";
+    private static final String UNKNOWN_CARD = "0000000000000000";
+    private static final String UNKNOWN_EMAIL = "nobody@bank.com";
+
+    private static final double INITIAL_FUNDS = 10_000;
+    private static final double MAX_AMOUNT = 500;
+    private static final double MIN_RATE = 0.2;
+    private static final double MAX_RATE = 5;
+    private static final double SAVINGS_SHARE = 0.2;
+    private static final double ONE_TIME_SHARE = 0.2;
+    private static final double[] INTEREST_RATES = {0.01, 0.02, 0.05, 0.1};
+    private static final int MIN_SPLIT = 2;
+    private static final int MAX_SPLIT = 4;
+    private static final int MAX_REPORT_WINDOW = 1_000;
+    private static final int ALIASES = 10;
+    private static final int CENTS = 100;
+
+    private final WorkloadSpec spec;
+    private final Random random;
+    private final BankSystem bankSystem = new BankSystem();
+    private final BankRegistry registry = bankSystem.getRegistry();
+    private final OutputSink sink = new DiscardingSink();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_DEFAULT);
+
+    private final String[] emails;
+    private final String[] currencies;
+    private final List<String> ibans = new ArrayList<>();
+    private final List<String> cards = new ArrayList<>();
+    private final String[] commandNames;
+    private final int[] cumulativeWeights;
+    private int timestamp;
+
+    /**
+     * @param spec the shape of the workload
+     */
+    public WorkloadGenerator(final WorkloadSpec spec) {
+        this.spec = spec;
+        this.random = new Random(spec.getSeed());
+
+        emails = new String[spec.getUsers()];
+        for (int i = 0; i < emails.length; i++) {
+            emails[i] = "user" + i + "@bank.com";
+        }
+
+        currencies = new String[spec.getCurrencies()];
+        for (int i = 0; i < currencies.length; i++) {
+            currencies[i] = i < CODES.length ? CODES[i] : syntheticCode(i - CODES.length);
+        }
+
+        Map<String, Integer> mix = spec.getMix();
+        commandNames = mix.keySet().toArray(new String[0]);
+        cumulativeWeights = new int[commandNames.length];
+        int total = 0;
+        for (int i = 0; i < commandNames.length; i++) {
+            total += mix.get(commandNames[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The command mix must have a positive weight");
+        }
+    }
+
+    /**
+     * @param args the options of the WorkloadSpec
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void main(final String[] args) throws IOException {
+        WorkloadSpec spec = WorkloadSpec.parse(args);
+        File file = new File(spec.getOutput());
+        int commands = new WorkloadGenerator(spec).generate(file);
+        System.out.println("Wrote " + commands + " commands to " + file);
+    }
+
+    /**
+     * Writes the workload to a file.
+     *
+     * @param file the output file
+     * @return the number of commands written, setup included
+     * @throws IOException in case of exceptions to writing
+     */
+    public int generate(final File file) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(file, JsonEncoding.UTF8)) {
+            generator.setCodec(objectMapper);
+            generator.writeStartObject();
+
+            generator.writeArrayFieldStart("users");
+            for (int i = 0; i < emails.length; i++) {
+                UserInput userInput = new UserInput();
+                userInput.setFirstName("First" + i);
+                userInput.setLastName("Last" + i);
+                userInput.setEmail(emails[i]);
+                generator.writeObject(userInput);
+                bankSystem.addUser(new User(userInput.getFirstName(),
+                        userInput.getLastName(), userInput.getEmail()));
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("exchangeRates");
+            for (ExchangeInput exchangeInput : exchangeRates()) {
+                generator.writeObject(exchangeInput);
+                bankSystem.addExchangeRate(new ExchangeRate(
+                        bankSystem.getCurrencies().intern(exchangeInput.getFrom()),
+                        bankSystem.getCurrencies().intern(exchangeInput.getTo()),
+                        exchangeInput.getRate()));
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("commands");
+            setUp(generator);
+            for (int i = 0; i < spec.getCommands(); i++) {
+                emit(generator, nextCommand());
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+        return timestamp;
+    }
+
+    /**
+     * Builds the exchange-rate graph of the spec.
+     */
+    private List<ExchangeInput> exchangeRates() {
+        List<ExchangeInput> rates = new ArrayList<>();
+        for (int i = 1; i < currencies.length; i++) {
+            switch (spec.getRateGraph()) {
+                case CHAIN -> rates.add(rate(i, i - 1));
+                case STAR -> rates.add(rate(i, 0));
+                case TREE -> rates.add(rate(i, random.nextInt(i)));
+                case DENSE -> {
+                    for (int j = 0; j < i; j++) {
+                        rates.add(rate(i, j));
+                    }
+                }
+                default -> throw new IllegalStateException("Unknown graph "
+                        + spec.getRateGraph());
+            }
+        }
+        return rates;
+    }
+
+    private ExchangeInput rate(final int from, final int to) {
+        ExchangeInput exchangeInput = new ExchangeInput();
+        exchangeInput.setFrom(currencies[from]);
+        exchangeInput.setTo(currencies[to]);
+        exchangeInput.setRate(round(MIN_RATE + random.nextDouble() * (MAX_RATE - MIN_RATE)));
+        return exchangeInput;
+    }
+
+    /**
+     * Opens, cards and funds the accounts of every user.
+     */
+    private void setUp(final JsonGenerator generator) throws IOException {
+        for (String email : emails) {
+            for (int i = 0; i < spec.getAccountsPerUser(); i++) {
+                emit(generator, addAccount(email));
+                String iban = ibans.get(ibans.size() - 1);
+
+                for (int j = 0; j < spec.getCardsPerAccount(); j++) {
+                    emit(generator, createCard(random.nextDouble() < ONE_TIME_SHARE
+                            ? "createOneTimeCard" : "createCard", iban, email));
+                }
+
+                CommandInput addFunds = command("addFunds");
+                addFunds.setAccount(iban);
+                addFunds.setAmount(INITIAL_FUNDS);
+                emit(generator, addFunds);
+            }
+        }
+    }
+
+    /**
+     * Draws the next command of the mix.
+     */
+    private CommandInput nextCommand() {
+        int dice = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = 0;
+        while (cumulativeWeights[index] <= dice) {
+            index++;
+        }
+        String name = commandNames[index];
+
+        CommandInput command;
+        switch (name) {
+            case "addAccount" -> command = addAccount(email());
+            case "createCard", "createOneTimeCard" -> {
+                String iban = account();
+                command = createCard(name, iban, ownerOfAccount(iban));
+            }
+            case "payOnline" -> {
+                String card = card();
+                command = command(name);
+                command.setCardNumber(card);
+                command.setEmail(ownerOfCard(card));
+                command.setAmount(amount());
+                command.setCurrency(currency());
+                command.setCommerciant(COMMERCIANTS[random.nextInt(COMMERCIANTS.length)]);
+                command.setDescription("payment");
+            }
+            case "sendMoney" -> {
+                String iban = account();
+                command = command(name);
+                command.setAccount(iban);
+                command.setEmail(ownerOfAccount(iban));
+                command.setReceiver(account());
+                command.setAmount(amount());
+                command.setDescription("transfer");
+            }
+            case "splitPayment" -> {
+                command = command(name);
+                List<String> accounts = new ArrayList<>();
+                int size = MIN_SPLIT + random.nextInt(MAX_SPLIT - MIN_SPLIT + 1);
+                for (int i = 0; i < size; i++) {
+                    // The bank cannot handle unknown accounts in a split, so none are sent
+                    accounts.add(existingAccount());
+                }
+                command.setAccounts(accounts);
+                command.setAmount(amount());
+                command.setCurrency(currency());
+            }
+            case "deleteCard", "checkCardStatus" -> {
+                String card = card();
+                command = command(name);
+                command.setCardNumber(card);
+                command.setEmail(ownerOfCard(card));
+            }
+            case "deleteAccount", "setAlias" -> {
+                String iban = account();
+                command = command(name);
+                command.setAccount(iban);
+                command.setEmail(ownerOfAccount(iban));
+                command.setAlias("alias" + random.nextInt(ALIASES));
+            }
+            case "addFunds", "setMinimumBalance" -> {
+                command = command(name);
+                command.setAccount(account());
+                command.setAmount(amount());
+            }
+            case "addInterest" -> {
+                command = command(name);
+                command.setAccount(account());
+            }
+            case "changeInterestRate" -> {
+                command = command(name);
+                command.setAccount(account());
+                command.setInterestRate(INTEREST_RATES[random.nextInt(INTEREST_RATES.length)]);
+            }
+            case "report", "spendingsReport" -> {
+                command = command(name);
+                command.setAccount(account());
+                command.setStartTimestamp(
+                        Math.max(0, command.getTimestamp() - random.nextInt(MAX_REPORT_WINDOW)));
+                command.setEndTimestamp(command.getTimestamp());
+            }
+            case "printTransactions" -> {
+                command = command(name);
+                command.setEmail(email());
+            }
+            case "printUsers" -> command = command(name);
+            default -> throw new IllegalArgumentException("Unknown command " + name);
+        }
+        return command;
+    }
+
+    private CommandInput addAccount(final String email) {
+        CommandInput command = command("addAccount");
+        command.setEmail(email);
+        command.setCurrency(currencies[random.nextInt(currencies.length)]);
+        if (random.nextDouble() < SAVINGS_SHARE) {
+            command.setAccountType("savings");
+            command.setInterestRate(INTEREST_RATES[random.nextInt(INTEREST_RATES.length)]);
+        } else {
+            command.setAccountType("classic");
+        }
+        return command;
+    }
+
+    private CommandInput createCard(final String name, final String iban, final String email) {
+        CommandInput command = command(name);
+        command.setAccount(iban);
+        command.setEmail(email);
+        return command;
+    }
+
+    private CommandInput command(final String name) {
+        CommandInput command = new CommandInput();
+        command.setCommand(name);
+        command.setTimestamp(++timestamp);
+        return command;
+    }
+
+    /**
+     * Writes a command and runs it on the generator's bank, recording the accounts and
+     * cards it creates.
+     */
+    private void emit(final JsonGenerator generator, final CommandInput command)
+            throws IOException {
+        generator.writeObject(command);
+        if (READ_ONLY.contains(command.getCommand())) {
+            return;
+        }
+
+        // The account that may receive a new card, and its newest card before the command
+        Account carded = null;
+        switch (command.getCommand()) {
+            case "createCard", "createOneTimeCard" ->
+                    carded = registry.findAccountByIBAN(command.getAccount());
+            case "payOnline" -> {
+                CardEntry entry = registry.findCard(command.getCardNumber());
+                carded = entry == null ? null : entry.getAccount();
+            }
+            default -> {
+            }
+        }
+        Card newestCard = carded == null ? null : newestCard(carded);
+
+        User owner = "addAccount".equals(command.getCommand())
+                ? registry.findUserByEmail(command.getEmail()) : null;
+        int ownedAccounts = owner == null ? 0 : owner.getAccounts().size();
+
+        bankSystem.processCommand(command, sink);
+
+        if (owner != null && owner.getAccounts().size() > ownedAccounts) {
+            ibans.add(owner.getAccounts().get(ownedAccounts).getIban());
+        }
+        if (carded != null) {
+            Card card = newestCard(carded);
+            if (card != null && card != newestCard) {
+                // A new card, or the replacement of a used one-time card
+                cards.add(card.getCardNumber());
+            }
+        }
+    }
+
+    private static Card newestCard(final Account account) {
+        List<Card> accountCards = account.getCards();
+        return accountCards.isEmpty() ? null : accountCards.get(accountCards.size() - 1);
+    }
+
+    /**
+     * @return the IBAN of an existing account, or sometimes an unknown one
+     */
+    private String account() {
+        return invalid() ? UNKNOWN_IBAN : existingAccount();
+    }
+
+    /**
+     * @return the IBAN of an existing account, or an unknown one if there are none
+     */
+    private String existingAccount() {
+        while (!ibans.isEmpty()) {
+            int index = random.nextInt(ibans.size());
+            String iban = ibans.get(index);
+            if (registry.findAccountByIBAN(iban) != null) {
+                return iban;
+            }
+            removeAt(ibans, index);
+        }
+        return UNKNOWN_IBAN;
+    }
+
+    /**
+     * @return the number of an existing card, or sometimes an unknown one
+     */
+    private String card() {
+        while (!cards.isEmpty() && !invalid()) {
+            int index = random.nextInt(cards.size());
+            String card = cards.get(index);
+            if (registry.findCard(card) != null) {
+                return card;
+            }
+            removeAt(cards, index);
+        }
+        return UNKNOWN_CARD;
+    }
+
+    private String email() {
+        return invalid() ? UNKNOWN_EMAIL : emails[random.nextInt(emails.length)];
+    }
+
+    private String ownerOfAccount(final String iban) {
+        User owner = registry.findUserByAccount(iban);
+        return owner == null ? email() : owner.getEmail();
+    }
+
+    private String ownerOfCard(final String card) {
+        CardEntry entry = registry.findCard(card);
+        return entry == null || entry.getOwner() == null ? email()
+                : entry.getOwner().getEmail();
+    }
+
+    private String currency() {
+        return currencies[random.nextInt(currencies.length)];
+    }
+
+    private double amount() {
+        return round(1 + random.nextDouble() * MAX_AMOUNT);
+    }
+
+    private boolean invalid() {
+        return random.nextDouble() < spec.getInvalidRate();
+    }
+
+    private static double round(final double value) {
+        return (double) Math.round(value * CENTS) / CENTS;
+    }
+
+    /**
+     * Removes a list element in constant time, by moving the last one in its place.
+     */
+    private static void removeAt(final List<String> list, final int index) {
+        String last = list.remove(list.size() - 1);
+        if (index < list.size()) {
+            list.set(index, last);
+        }
+    }
+
+    /**
+     * Builds a three-letter code outside the ISO list, for workloads with many currencies.
+     */
+    private static String syntheticCode(final int index) {
+        return "Q" + (char) ('A' + index / ALPHABET % ALPHABET) + (char) ('A' + index % ALPHABET);
+    }
+}
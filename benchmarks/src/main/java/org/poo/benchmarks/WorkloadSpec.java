@@ -0,0 +1,146 @@
+package org.poo.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The shape of a generated workload: how many users, accounts, cards and currencies the
+ * bank starts with, how the exchange rates connect the currencies, and how many commands
+ * of every kind follow.
+ *
+ * It is parsed from "--name value" arguments, e.g.
+ * {@code --users 100000 --commands 1000000 --rates star --mix printUsers=0,payOnline=500}.
+ */
+public final class WorkloadSpec {
+    /**
+     * How the exchange rates connect the currencies.
+     */
+    public enum RateGraph {
+        /** Every currency converts to the next one, so conversions walk long paths. */
+        CHAIN,
+        /** Every currency converts to the first one. */
+        STAR,
+        /** Every pair of currencies has its own rate. */
+        DENSE,
+        /** Every currency converts to a random earlier one. */
+        TREE
+    }
+
+    private static final String[] DEFAULT_MIX = {
+        "payOnline=300", "sendMoney=150", "addFunds=120", "checkCardStatus=50",
+        "setMinimumBalance=30", "splitPayment=40", "report=40", "spendingsReport=40",
+        "printTransactions=20", "createCard=30", "createOneTimeCard=20", "deleteCard=20",
+        "addAccount=30", "deleteAccount=10", "setAlias=20", "addInterest=30",
+        "changeInterestRate=20", "printUsers=1"
+    };
+
+    private int users = 1_000;
+    private int accountsPerUser = 2;
+    private int cardsPerAccount = 1;
+    private int currencies = 6;
+    private RateGraph rateGraph = RateGraph.CHAIN;
+    private int commands = 100_000;
+    private double invalidRate = 0.02;
+    private long seed = 1;
+    private String output = "workload.json";
+    private final Map<String, Integer> mix = new LinkedHashMap<>();
+
+    private WorkloadSpec() {
+        for (String pair : DEFAULT_MIX) {
+            String[] parts = pair.split("=");
+            mix.put(parts[0], Integer.parseInt(parts[1]));
+        }
+    }
+
+    /**
+     * Parses a spec, starting from the defaults.
+     *
+     * @param args the "--name value" pairs
+     * @return the spec
+     */
+    public static WorkloadSpec parse(final String[] args) {
+        WorkloadSpec spec = new WorkloadSpec();
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--users" -> spec.users = Integer.parseInt(value);
+                case "--accounts-per-user" -> spec.accountsPerUser = Integer.parseInt(value);
+                case "--cards-per-account" -> spec.cardsPerAccount = Integer.parseInt(value);
+                case "--currencies" -> spec.currencies = Integer.parseInt(value);
+                case "--rates" -> spec.rateGraph = RateGraph.valueOf(value.toUpperCase());
+                case "--commands" -> spec.commands = Integer.parseInt(value);
+                case "--invalid" -> spec.invalidRate = Double.parseDouble(value);
+                case "--seed" -> spec.seed = Long.parseLong(value);
+                case "--out" -> spec.output = value;
+                case "--mix" -> spec.setMix(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (spec.users < 1 || spec.accountsPerUser < 1 || spec.currencies < 1) {
+            throw new IllegalArgumentException("A workload needs users, accounts and currencies");
+        }
+        return spec;
+    }
+
+    /**
+     * Overrides the weights of some commands, given as "name=weight" pairs.
+     */
+    private void setMix(final String weights) {
+        for (String pair : weights.split(",")) {
+            String[] parts = pair.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry " + pair);
+            }
+            if (!mix.containsKey(parts[0])) {
+                throw new IllegalArgumentException("Unknown command " + parts[0]);
+            }
+            mix.put(parts[0], Integer.parseInt(parts[1]));
+        }
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getAccountsPerUser() {
+        return accountsPerUser;
+    }
+
+    public int getCardsPerAccount() {
+        return cardsPerAccount;
+    }
+
+    public int getCurrencies() {
+        return currencies;
+    }
+
+    public RateGraph getRateGraph() {
+        return rateGraph;
+    }
+
+    public int getCommands() {
+        return commands;
+    }
+
+    public double getInvalidRate() {
+        return invalidRate;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * @return the weight of every command, in a fixed order
+     */
+    public Map<String, Integer> getMix() {
+        return mix;
+    }
+}
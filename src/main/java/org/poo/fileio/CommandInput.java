@@ -1,6 +1,9 @@
 package org.poo.fileio;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
@@ -26,4 +29,20 @@ public final class CommandInput {
     private String accountType;
     private double interestRate;
     private List<String> accounts;
+    private Integer limit;
+    private Long cursor;
+    private Integer afterTimestamp;
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private CommandType type = CommandType.UNKNOWN;
+
+    /**
+     * Sets the name of the command and resolves its opcode.
+     *
+     * @param command the name of the command
+     */
+    public void setCommand(final String command) {
+        this.command = command;
+        this.type = CommandType.of(command);
+    }
 }
@@ -0,0 +1,78 @@
+package org.poo.fileio;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The opcode of an input command, resolved once from its name when the command is read,
+ * so the bank dispatches on the ordinal instead of comparing strings.
+ */
+public enum CommandType {
+    PRINT_USERS("printUsers", false),
+    ADD_ACCOUNT("addAccount", true),
+    CREATE_CARD("createCard", true),
+    CREATE_ONE_TIME_CARD("createOneTimeCard", true),
+    ADD_FUNDS("addFunds", true),
+    DELETE_ACCOUNT("deleteAccount", true),
+    DELETE_CARD("deleteCard", true),
+    PAY_ONLINE("payOnline", true),
+    SEND_MONEY("sendMoney", true),
+    SET_ALIAS("setAlias", true),
+    PRINT_TRANSACTIONS("printTransactions", false),
+    SET_MINIMUM_BALANCE("setMinimumBalance", true),
+    CHECK_CARD_STATUS("checkCardStatus", true),
+    SPLIT_PAYMENT("splitPayment", true),
+    REPORT("report", false),
+    SPENDINGS_REPORT("spendingsReport", false),
+    ADD_INTEREST("addInterest", true),
+    CHANGE_INTEREST_RATE("changeInterestRate", true),
+    PRINT_USERS_DELTA("printUsersDelta", false),
+    /** Any command the bank does not know, which is ignored. */
+    UNKNOWN(null, false);
+
+    private static final Map<String, CommandType> BY_NAME = new HashMap<>();
+
+    static {
+        for (CommandType type : values()) {
+            if (type.commandName != null) {
+                BY_NAME.put(type.commandName, type);
+            }
+        }
+    }
+
+    private final String commandName;
+    private final boolean mutating;
+
+    CommandType(final String commandName, final boolean mutating) {
+        this.commandName = commandName;
+        this.mutating = mutating;
+    }
+
+    /**
+     * @return the name of the command in the input, or null for UNKNOWN
+     */
+    public String getCommandName() {
+        return commandName;
+    }
+
+    /**
+     * @return whether the command may change the state of the bank, as opposed to only
+     *         printing or reporting it
+     */
+    public boolean isMutating() {
+        return mutating;
+    }
+
+    /**
+     * Resolves a command name.
+     *
+     * @param name the name of the command in the input
+     * @return its opcode, or UNKNOWN if the name is not a command
+     */
+    public static CommandType of(final String name) {
+        if (name == null) {
+            return UNKNOWN;
+        }
+        return BY_NAME.getOrDefault(name, UNKNOWN);
+    }
+}
@@ -1,14 +1,15 @@
 package org.poo.main;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.poo.checker.Checker;
 import org.poo.checker.CheckerConstants;
-import org.poo.fileio.ObjectInput;
 import org.poo.main.bank.BankSystem;
-import org.poo.main.exchange_rate.ExchangeRate;
-import org.poo.main.user.User;
+import org.poo.main.bank.CommandProcessor;
+import org.poo.main.bank.ShardedBankEngine;
+import org.poo.main.io.JsonGeneratorSink;
+import org.poo.main.io.OutputSink;
+import org.poo.main.io.StreamingInputLoader;
+import org.poo.main.journal.BankSnapshot;
+import org.poo.main.journal.CommandJournal;
 
 import java.io.File;
 import java.io.IOException;
@@ -23,6 +24,11 @@ import java.util.Objects;
  * The entry point to this homework. It runs the checker that tests your implementation.
  */
 public final class Main {
+    private static final String METRICS_PROPERTY = "metrics";
+    private static final String JOURNAL_PROPERTY = "journal";
+    private static final String SNAPSHOT_PROPERTY = "snapshot";
+    private static final String COALESCE_PROPERTY = "coalesce";
+
     /**
      * for coding style
      */
@@ -71,38 +77,73 @@ public final class Main {
      */
     public static void action(final String filePath1,
                               final String filePath2) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        File file = new File(CheckerConstants.TESTS_PATH + filePath1);
-        ObjectInput inputData = objectMapper.readValue(file, ObjectInput.class);
+        action(filePath1, filePath2, 1);
+    }
 
-        ArrayNode output = objectMapper.createArrayNode();
+    /**
+     * @param filePath1 for input file
+     * @param filePath2 for output file
+     * @param shards    the number of shards running the commands; 1 runs them serially
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void action(final String filePath1, final String filePath2,
+                              final int shards) throws IOException {
+        File file = new File(CheckerConstants.TESTS_PATH + filePath1);
 
         BankSystem bankSystem = new BankSystem();
 
-        // Parsing the users from input and adding them to the bank system
-        for (var userInput : inputData.getUsers()) {
-            User user = new User(
-                    userInput.getFirstName(),
-                    userInput.getLastName(),
-                    userInput.getEmail());
-            bankSystem.addUser(user);
+        // With -Djournal=true, the run is recorded in a journal next to the output
+        CommandJournal journal = null;
+        if (Boolean.getBoolean(JOURNAL_PROPERTY)) {
+            journal = CommandJournal.open(new File(siblingPath(filePath2, ".journal")),
+                    CommandJournal.DEFAULT_GROUP_SIZE);
+            bankSystem.attachJournal(journal);
         }
 
-        // Parsing the exchange rates from input and adding them to the bank system
-        for (var exchangeRateInput : inputData.getExchangeRates()) {
-            ExchangeRate exchangeRate = new ExchangeRate(
-                    exchangeRateInput.getFrom(),
-                    exchangeRateInput.getTo(),
-                    exchangeRateInput.getRate()
-            );
-            bankSystem.addExchangeRate(exchangeRate);
+        // Stream the users, exchange rates and commands from the input into the bank system,
+        // writing every command result to the output file as soon as it is produced
+        try (OutputSink output = JsonGeneratorSink.open(new File(filePath2))) {
+            if (shards <= 1) {
+                // With -Dcoalesce=true, redundant commands are merged before they run
+                CommandProcessor processor = Boolean.getBoolean(COALESCE_PROPERTY)
+                        ? bankSystem.coalescingProcessor(output)
+                        : bankSystem.serialProcessor(output);
+                StreamingInputLoader.load(file, bankSystem, processor);
+            } else {
+                try (ShardedBankEngine engine =
+                             new ShardedBankEngine(bankSystem, shards, output)) {
+                    StreamingInputLoader.load(file, bankSystem, engine);
+                }
+            }
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
         }
 
-        // Process the commands from the input and generate the output
-        bankSystem.processCommands(inputData.getCommands(), output);
+        // With -Dsnapshot=true, the final state of the bank is written next to the output
+        if (Boolean.getBoolean(SNAPSHOT_PROPERTY)) {
+            BankSnapshot.write(bankSystem, new File(siblingPath(filePath2, ".snapshot")));
+        }
 
-        ObjectWriter objectWriter = objectMapper.writerWithDefaultPrettyPrinter();
-        objectWriter.writeValue(new File(filePath2), output);
+        // With -Dmetrics=true, the per-command metrics are written next to the output
+        if (Boolean.getBoolean(METRICS_PROPERTY)) {
+            bankSystem.getMetrics().export(new File(siblingPath(filePath2, ".metrics.json")));
+        }
+    }
+
+    /**
+     * Returns the path of a file written next to an output file.
+     *
+     * @param outputPath the output file
+     * @param suffix     the suffix of the new file, e.g. ".metrics.json"
+     * @return the new file, with the suffix in place of ".json"
+     */
+    public static String siblingPath(final String outputPath, final String suffix) {
+        String base = outputPath.endsWith(".json")
+                ? outputPath.substring(0, outputPath.length() - ".json".length())
+                : outputPath;
+        return base + suffix;
     }
 
     /**
@@ -0,0 +1,100 @@
+package org.poo.main;
+
+import org.poo.checker.Checker;
+import org.poo.checker.CheckerConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs Main.action for every input file on a thread pool, then calls the checker.
+ * Every run builds its own BankSystem, so the output files are byte-identical to the
+ * ones produced by the sequential Main.
+ */
+public final class ParallelRunner {
+    /**
+     * for coding style
+     */
+    private ParallelRunner() {
+    }
+
+    /**
+     * @param args optionally, the number of threads, which defaults to the number of
+     *             processors, and the number of shards running each file, which defaults to 1
+     * @throws IOException in case of exceptions to reading / writing
+     * @throws InterruptedException if the runner is interrupted while waiting for the runs
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        int threads = args.length > 0
+                ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        int shards = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        File directory = new File(CheckerConstants.TESTS_PATH);
+        Path path = Paths.get(CheckerConstants.RESULT_PATH);
+
+        if (Files.exists(path)) {
+            File resultFile = new File(String.valueOf(path));
+            for (File file : Objects.requireNonNull(resultFile.listFiles())) {
+                file.delete();
+            }
+            resultFile.delete();
+        }
+        Files.createDirectories(path);
+
+        var sortedFiles = Arrays.stream(Objects.requireNonNull(directory.listFiles()))
+                .sorted(Comparator.comparingInt(Main::fileConsumer))
+                .toList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (File file : sortedFiles) {
+                String filepath = CheckerConstants.OUT_PATH + file.getName();
+                File out = new File(filepath);
+                boolean isCreated = out.createNewFile();
+                if (isCreated) {
+                    runs.add(executor.submit(() -> run(file.getName(), filepath, shards)));
+                }
+            }
+
+            // Wait for every run, reporting the first failure
+            for (Future<?> run : runs) {
+                try {
+                    run.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof UncheckedIOException cause) {
+                        throw cause.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Checker.calculateScore();
+    }
+
+    private static void run(final String filePath1, final String filePath2,
+                            final int shards) {
+        try {
+            Main.action(filePath1, filePath2, shards);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.poo.main.accounts;
 
+import org.poo.main.bank.BankRegistry;
 import org.poo.main.cards.Card;
+import org.poo.main.exchange_rate.Currency;
+import org.poo.main.user.User;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -10,15 +13,19 @@ import java.util.List;
  */
 public abstract class Account {
     private String iban;
-    private double balance;
-    private String currency;
+    private long balance; // In minor units of the account's currency
+    private Currency currency;
     private String accountType;
     private String ownerEmail;
     private String alias;
-    private double minBalance;
+    private long minBalance; // In minor units of the account's currency
     private List<Card> cards; // List of cards associated with the account
+    private BankRegistry registry; // Index kept in sync with the account's cards
+    private long version; // Bumped on every change a report of the account can show
+    private User owner; // User listing the account, told when its printed state changes
+    private boolean changed; // Whether the printed state changed since the last print
 
-    public Account(final String currency, final String type, final String ownerEmail,
+    public Account(final Currency currency, final String type, final String ownerEmail,
                                                                 final String iban) {
         this.balance = 0;
         this.currency = currency;
@@ -33,12 +40,30 @@ public abstract class Account {
     /**
      * Returns the current balance of the account.
      *
-     * @return the balance
+     * @return the balance, in minor units of the account's currency
      */
-    public double getBalance() {
+    public long getBalance() {
         return balance;
     }
 
+    /**
+     * Returns the modification version of the account. It changes with the balance and
+     * with every transaction recorded for the account, so an unchanged version means an
+     * unchanged report.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Marks the account as modified, e.g. when a transaction is recorded for it.
+     */
+    public void bumpVersion() {
+        version++;
+    }
+
     /**
      * Returns the list of cards associated with the account.
      *
@@ -51,12 +76,30 @@ public abstract class Account {
     /**
      * Returns the currency of the account.
      *
-     * @return the currency
+     * @return the currency code
      */
     public String getCurrency() {
+        return currency.getCode();
+    }
+
+    /**
+     * Returns the interned currency of the account.
+     *
+     * @return the currency
+     */
+    public Currency getCurrencyRef() {
         return currency;
     }
 
+    /**
+     * Returns the id of the account's currency.
+     *
+     * @return the currency id
+     */
+    public int getCurrencyId() {
+        return currency.getId();
+    }
+
     /**
      * Returns the IBAN of the account.
      *
@@ -105,18 +148,18 @@ public abstract class Account {
     /**
      * Returns the minimum balance allowed for the account.
      *
-     * @return the minimum balance
+     * @return the minimum balance, in minor units of the account's currency
      */
-    public double getMinBalance() {
+    public long getMinBalance() {
         return minBalance;
     }
 
     /**
      * Sets the minimum balance for the account.
      *
-     * @param minBalance the minimum balance to set
+     * @param minBalance the minimum balance to set, in minor units of the account's currency
      */
-    public void setMinBalance(final double minBalance) {
+    public void setMinBalance(final long minBalance) {
         this.minBalance = minBalance;
     }
 
@@ -128,6 +171,10 @@ public abstract class Account {
     public void addCard(final Card card) {
         if (!cards.contains(card)) {
             cards.add(card);
+            markChanged();
+            if (registry != null) {
+                registry.registerCard(card, this);
+            }
         }
     }
 
@@ -137,32 +184,95 @@ public abstract class Account {
      * @param card the card to remove
      */
     public void removeCard(final Card card) {
-        cards.remove(card);
+        if (!cards.remove(card)) {
+            return;
+        }
+        markChanged();
+        if (owner != null) {
+            owner.recordRemovedCard(card.getCardNumber());
+        }
+        if (registry != null) {
+            registry.unregisterCard(card);
+        }
     }
 
     /**
      * Deposits an amount into the account.
      *
-     * @param amount the amount to deposit
+     * @param amount the amount to deposit, in minor units of the account's currency
      */
-    public void deposit(final double amount) {
+    public void deposit(final long amount) {
         balance += amount;
+        version++;
+        markChanged();
     }
 
     /**
      * Spends an amount from the account.
      *
-     * @param amount the amount to spend
+     * @param amount the amount to spend, in minor units of the account's currency
      */
-    public void spend(final double amount) {
+    public void spend(final long amount) {
         balance -= amount;
+        version++;
+        markChanged();
     }
 
     /**
      * Clears all cards associated with the account.
      */
     public void clearCards() {
+        if (registry != null) {
+            for (Card card : cards) {
+                registry.unregisterCard(card);
+            }
+        }
         cards.clear();
+        markChanged();
+    }
+
+    /**
+     * Marks the account as printUsers shows it, its balance or its cards, changed, and
+     * tells the owner.
+     */
+    public void markChanged() {
+        changed = true;
+        if (owner != null) {
+            owner.markChanged();
+        }
+    }
+
+    /**
+     * @return whether the balance or the cards of the account changed since the last
+     *         printUsers or printUsersDelta
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Forgets the changes of the account, once they were printed.
+     */
+    public void clearChanged() {
+        changed = false;
+    }
+
+    /**
+     * Sets the user listing the account.
+     *
+     * @param owner the user, or null once the account is removed
+     */
+    public void setOwner(final User owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Attaches the account to the registry that indexes its cards.
+     *
+     * @param registry the bank's registry, or null to detach the account
+     */
+    public void setRegistry(final BankRegistry registry) {
+        this.registry = registry;
     }
 
     /**
@@ -1,11 +1,13 @@
 package org.poo.main.accounts;
 
+import org.poo.main.exchange_rate.Currency;
+
 /**
  * Represents a classic account in the banking system.
  * This account type does not support savings-related features.
  */
 public class ClassicAccount extends Account {
-    public ClassicAccount(final String currency, final String ownerEmail, final String iban) {
+    public ClassicAccount(final Currency currency, final String ownerEmail, final String iban) {
         super(currency, "classic", ownerEmail, iban);
     }
 
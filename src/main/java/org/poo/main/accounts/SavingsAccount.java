@@ -1,5 +1,7 @@
 package org.poo.main.accounts;
 
+import org.poo.main.exchange_rate.Currency;
+
 /**
  * Represents a savings account in the banking system.
  * This account type includes an interest rate feature.
@@ -7,7 +9,7 @@ package org.poo.main.accounts;
 public final class SavingsAccount extends Account {
     private double interestRate;
 
-    public SavingsAccount(final String currency, final String ownerEmail,
+    public SavingsAccount(final Currency currency, final String ownerEmail,
                           final double interestRate, final String iban) {
         super(currency, "savings", ownerEmail, iban);
         this.interestRate = interestRate;
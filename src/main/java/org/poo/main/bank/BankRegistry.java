@@ -0,0 +1,152 @@
+package org.poo.main.bank;
+
+import org.poo.main.accounts.Account;
+import org.poo.main.cards.Card;
+import org.poo.main.user.User;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Central index of the bank's entities, owned by the BankSystem.
+ * Keeps hash maps from email to user, from IBAN to account and from IBAN to the
+ * account's owner, plus a card-number index, so the command handlers resolve them
+ * in constant time instead of walking every user, account and card.
+ * The maps are concurrent, so the shards of a ShardedBankEngine can index their own
+ * entities at the same time.
+ */
+public final class BankRegistry {
+    private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Account> accountsByIban = new ConcurrentHashMap<>();
+    private final Map<String, User> ownersByIban = new ConcurrentHashMap<>();
+    private final Map<String, CardEntry> cardsByNumber = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a user together with the accounts it already owns.
+     * The user is attached to the registry, so its later account changes are indexed.
+     *
+     * @param user the user to register
+     */
+    public void registerUser(final User user) {
+        // The first user registered with an email wins, like the old linear lookup
+        usersByEmail.putIfAbsent(user.getEmail(), user);
+        user.setRegistry(this);
+
+        for (Account account : user.getAccounts()) {
+            registerAccount(account, user);
+        }
+    }
+
+    /**
+     * Indexes an account under its IBAN, together with the cards it already has.
+     * The account is attached to the registry, so its later card changes are indexed.
+     *
+     * @param account the account to index
+     * @param owner   the user owning the account
+     */
+    public void registerAccount(final Account account, final User owner) {
+        if (account == null) {
+            return;
+        }
+        accountsByIban.putIfAbsent(account.getIban(), account);
+        ownersByIban.putIfAbsent(account.getIban(), owner);
+        account.setRegistry(this);
+
+        for (Card card : account.getCards()) {
+            registerCard(card, account);
+        }
+    }
+
+    /**
+     * Removes an account and its cards from the index.
+     *
+     * @param account the account to remove
+     */
+    public void unregisterAccount(final Account account) {
+        if (account == null) {
+            return;
+        }
+        for (Card card : account.getCards()) {
+            unregisterCard(card);
+        }
+        if (accountsByIban.remove(account.getIban(), account)) {
+            ownersByIban.remove(account.getIban());
+        }
+        account.setRegistry(null);
+    }
+
+    /**
+     * Indexes a card under its number.
+     *
+     * @param card    the card to index
+     * @param account the account the card belongs to
+     */
+    public void registerCard(final Card card, final Account account) {
+        User owner = ownersByIban.get(account.getIban());
+        cardsByNumber.putIfAbsent(card.getCardNumber(), new CardEntry(card, account, owner));
+    }
+
+    /**
+     * Removes a card from the index.
+     *
+     * @param card the card to remove
+     */
+    public void unregisterCard(final Card card) {
+        CardEntry entry = cardsByNumber.get(card.getCardNumber());
+        if (entry != null && entry.getCard() == card) {
+            cardsByNumber.remove(card.getCardNumber());
+        }
+    }
+
+    /**
+     * Finds a user by email.
+     *
+     * @param email the email to search for
+     * @return the user with the specified email, or null if not found
+     */
+    public User findUserByEmail(final String email) {
+        if (email == null) {
+            return null;
+        }
+        return usersByEmail.get(email);
+    }
+
+    /**
+     * Finds an account by IBAN.
+     *
+     * @param iban the IBAN to search for
+     * @return the account with the specified IBAN, or null if not found
+     */
+    public Account findAccountByIBAN(final String iban) {
+        if (iban == null) {
+            return null;
+        }
+        return accountsByIban.get(iban);
+    }
+
+    /**
+     * Finds the user owning the account with the given IBAN.
+     *
+     * @param iban the IBAN to search for
+     * @return the owner of the account, or null if not found
+     */
+    public User findUserByAccount(final String iban) {
+        if (iban == null) {
+            return null;
+        }
+        return ownersByIban.get(iban);
+    }
+
+    /**
+     * Finds a card, its account and the account's owner by card number.
+     *
+     * @param cardNumber the card number to search for
+     * @return the card entry, or null if no such card exists
+     */
+    public CardEntry findCard(final String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        return cardsByNumber.get(cardNumber);
+    }
+}
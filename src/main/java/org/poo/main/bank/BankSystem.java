@@ -5,89 +5,398 @@ import org.poo.main.cards.OneTimeCard;
 import org.poo.main.accounts.Account;
 import org.poo.main.accounts.ClassicAccount;
 import org.poo.main.accounts.SavingsAccount;
+import org.poo.main.exchange_rate.Currency;
+import org.poo.main.exchange_rate.CurrencyTable;
 import org.poo.main.exchange_rate.ExchangeRate;
+import org.poo.main.exchange_rate.ExchangeRateTable;
+import org.poo.main.exchange_rate.Money;
+import org.poo.main.io.ArrayNodeSink;
+import org.poo.main.io.OutputSink;
+import org.poo.main.journal.CommandJournal;
+import org.poo.main.metrics.CommandMetrics;
 import org.poo.main.tools.Tools;
 import org.poo.main.transactions.*;
 import org.poo.main.user.User;
-import org.poo.utils.Utils;
+import org.poo.utils.IdGenerator;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandType;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
 
 public class BankSystem {
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final List<User> users = new ArrayList<>();
     private final List<ExchangeRate> exchangeRates = new ArrayList<>();
+    private final CurrencyTable currencies = new CurrencyTable();
+    private volatile ExchangeRateTable exchangeRateTable; // Built from the rates on first use
+    private final BankRegistry registry = new BankRegistry();
+    private final UserChangeLog changeLog = new UserChangeLog(); // For printUsersDelta
+    private final IdGenerator idGenerator = new IdGenerator();
     private final TransactionService transactionService;
-
+    private final CommandHandler[] handlers = createHandlers(); // Indexed by opcode
+    private final CommandMetrics metrics = new CommandMetrics();
+    private final ReportCache reportCache =
+            new ReportCache(ReportCache.DEFAULT_CAPACITY, ReportCache.DEFAULT_MAX_TRANSACTIONS);
+    private CommandJournal journal; // Records what is needed to rebuild the bank, if set
+    private boolean coalescing; // Whether processCommands coalesces redundant commands
+
+    /**
+     * Adds a user to the bank and indexes it in the registry.
+     *
+     * @param user the user to add
+     */
     public void addUser(final User user) {
+        if (journal != null) {
+            journal.appendUser(user);
+        }
+        user.trackChanges(changeLog, users.size());
         users.add(user);
+        registry.registerUser(user);
     }
 
+    /**
+     * Adds an exchange rate, which takes effect from the next conversion.
+     *
+     * @param exchangeRate the exchange rate to add
+     */
     public void addExchangeRate(final ExchangeRate exchangeRate) {
+        if (journal != null) {
+            journal.appendExchangeRate(exchangeRate);
+        }
         exchangeRates.add(exchangeRate);
+        exchangeRateTable = null;
+    }
+
+    /**
+     * Returns the exchange-rate table, building it once after the rates were loaded.
+     *
+     * @return the exchange-rate table
+     */
+    private ExchangeRateTable getExchangeRateTable() {
+        if (exchangeRateTable == null) {
+            exchangeRateTable = ExchangeRateTable.of(exchangeRates, currencies);
+        }
+        return exchangeRateTable;
+    }
+
+    /**
+     * Returns the users of the bank, in the order they were added.
+     *
+     * @return the users
+     */
+    public List<User> getUsers() {
+        return users;
+    }
+
+    /**
+     * Returns the exchange rates of the bank, in the order they were added.
+     *
+     * @return the exchange rates
+     */
+    public List<ExchangeRate> getExchangeRates() {
+        return exchangeRates;
+    }
+
+    /**
+     * Returns the generator of the bank's IBANs and card numbers.
+     *
+     * @return the id generator
+     */
+    public IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * Returns the table interning the currency codes used by the bank.
+     *
+     * @return the currency table
+     */
+    public CurrencyTable getCurrencies() {
+        return currencies;
     }
 
     public BankSystem() {
-        this.transactionService = new TransactionService(users);
+        this.transactionService = new TransactionService(registry);
+        applyDecorator(metrics::instrument);
+    }
+
+    /**
+     * Returns the per-command counters, latencies and slow-command log of the bank.
+     *
+     * @return the metrics
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the cache of the outputs of report and spendingsReport.
+     *
+     * @return the report cache
+     */
+    public ReportCache getReportCache() {
+        return reportCache;
+    }
+
+    /**
+     * Returns the registry indexing the users, accounts and cards of the bank.
+     *
+     * @return the registry
+     */
+    public BankRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Returns a processor running the commands on this bank, one after the other.
+     *
+     * @param output the sink receiving the command results
+     * @return the serial command processor
+     */
+    public CommandProcessor serialProcessor(final OutputSink output) {
+        return new CommandProcessor() {
+            @Override
+            public void processCommand(final CommandInput command) {
+                BankSystem.this.processCommand(command, output);
+            }
+
+            @Override
+            public void finishProcessing() {
+                BankSystem.this.finishProcessing();
+            }
+        };
+    }
+
+    /**
+     * Returns a processor that coalesces redundant commands, and then runs the rest on
+     * this bank one after the other. The results and transactions are the same as with
+     * the serial processor.
+     *
+     * @param output the sink receiving the command results
+     * @return the coalescing command processor
+     */
+    public CommandProcessor coalescingProcessor(final OutputSink output) {
+        return new CommandCoalescer(registry, serialProcessor(output),
+                CommandCoalescer.DEFAULT_WINDOW);
+    }
+
+    /**
+     * Sets whether processCommands coalesces redundant commands before running them.
+     *
+     * @param coalescing true to coalesce the commands of the batches
+     */
+    public void setCoalescing(final boolean coalescing) {
+        this.coalescing = coalescing;
     }
 
+    /**
+     * Processes a batch of commands and finishes the run.
+     *
+     * @param commands the commands, in input order
+     * @param output   the array collecting the command results
+     */
     public void processCommands(final CommandInput[] commands, final ArrayNode output) {
-        for (CommandInput command : commands) {
-            switch (command.getCommand()) {
-                case "printUsers" -> printUsers(command, output);
-                case "addAccount" -> addAccount(command);
-                case "createCard" -> createCard(command);
-                case "createOneTimeCard" -> createOneTimeCard(command);
-                case "addFunds" -> addFunds(command);
-                case "deleteAccount" -> deleteAccount(command, output);
-                case "deleteCard" -> deleteCard(command);
-                case "payOnline" -> payOnline(command, output);
-                case "sendMoney" -> sendMoney(command);
-                case "setAlias" -> setAlias(command);
-                case "printTransactions" -> printTransactions(command, output);
-                case "setMinimumBalance" -> setMinimumBalance(command);
-                case "checkCardStatus" -> checkCardStatus(command, output);
-                case "splitPayment" -> splitPayment(command);
-                case "report" -> report(command, output);
-                case "spendingsReport" -> spendingsReport(command, output);
-                case "addInterest" -> addInterest(command, output);
-                case "changeInterestRate" -> changeInterestRate(command, output);
-                default -> {
-                }
+        processCommands(commands, new ArrayNodeSink(output));
+    }
+
+    /**
+     * Processes a batch of commands and finishes the run.
+     *
+     * @param commands the commands, in input order
+     * @param output   the sink receiving the command results
+     */
+    public void processCommands(final CommandInput[] commands, final OutputSink output) {
+        if (coalescing) {
+            CommandProcessor processor = coalescingProcessor(output);
+            for (CommandInput command : commands) {
+                processor.processCommand(command);
             }
+            processor.finishProcessing();
+            return;
+        }
+        for (CommandInput command : commands) {
+            processCommand(command, output);
+        }
+        finishProcessing();
+    }
+
+    /**
+     * Processes a single command, so commands can be fed one by one as they are parsed.
+     *
+     * @param command the command to process
+     * @param output  the sink receiving the command results
+     */
+    public void processCommand(final CommandInput command, final OutputSink output) {
+        journalCommand(command);
+        runCommand(command, output);
+    }
+
+    /**
+     * Appends a command that may change the bank to the journal, if one is attached.
+     * Processors that run commands out of input order call it when they receive the
+     * command, so the journal keeps the input order.
+     *
+     * @param command the command
+     */
+    void journalCommand(final CommandInput command) {
+        if (journal != null && command.getType().isMutating()) {
+            journal.appendCommand(command);
+        }
+    }
+
+    /**
+     * Runs a command without journaling it.
+     *
+     * @param command the command to run
+     * @param output  the sink receiving the command results
+     */
+    void runCommand(final CommandInput command, final OutputSink output) {
+        handlers[command.getType().ordinal()].handle(command, output);
+    }
+
+    /**
+     * Returns the handler running a type of command.
+     *
+     * @param type the type of command
+     * @return the handler
+     */
+    public CommandHandler getHandler(final CommandType type) {
+        return handlers[type.ordinal()];
+    }
+
+    /**
+     * Replaces every handler with a decorated one, the single hook for instrumenting,
+     * batching or routing the commands of a type.
+     *
+     * @param decorator builds the new handler from the type and the current handler
+     */
+    public void decorateHandlers(
+            final BiFunction<CommandType, CommandHandler, CommandHandler> decorator) {
+        applyDecorator(decorator);
+    }
+
+    /**
+     * Decorates every handler. Private, so the constructor can instrument the handlers
+     * without calling an overridable method.
+     */
+    private void applyDecorator(
+            final BiFunction<CommandType, CommandHandler, CommandHandler> decorator) {
+        for (CommandType type : CommandType.values()) {
+            handlers[type.ordinal()] = decorator.apply(type, handlers[type.ordinal()]);
         }
-        Utils.resetRandom();
     }
 
-    private void printUsers(final CommandInput command, final ArrayNode output) {
-        // Create a node as the command result
-        ObjectNode commandResultNode = objectMapper.createObjectNode();
-        commandResultNode.put("command", "printUsers");
+    /**
+     * Builds the dispatch table, with one handler per type of command.
+     */
+    private CommandHandler[] createHandlers() {
+        CommandHandler[] table = new CommandHandler[CommandType.values().length];
+        table[CommandType.PRINT_USERS.ordinal()] = this::printUsers;
+        table[CommandType.ADD_ACCOUNT.ordinal()] = (command, output) -> addAccount(command);
+        table[CommandType.CREATE_CARD.ordinal()] = (command, output) -> createCard(command);
+        table[CommandType.CREATE_ONE_TIME_CARD.ordinal()] =
+                (command, output) -> createOneTimeCard(command);
+        table[CommandType.ADD_FUNDS.ordinal()] = (command, output) -> addFunds(command);
+        table[CommandType.DELETE_ACCOUNT.ordinal()] = this::deleteAccount;
+        table[CommandType.DELETE_CARD.ordinal()] = (command, output) -> deleteCard(command);
+        table[CommandType.PAY_ONLINE.ordinal()] = this::payOnline;
+        table[CommandType.SEND_MONEY.ordinal()] = (command, output) -> sendMoney(command);
+        table[CommandType.SET_ALIAS.ordinal()] = (command, output) -> setAlias(command);
+        table[CommandType.PRINT_TRANSACTIONS.ordinal()] = this::printTransactions;
+        table[CommandType.SET_MINIMUM_BALANCE.ordinal()] =
+                (command, output) -> setMinimumBalance(command);
+        table[CommandType.CHECK_CARD_STATUS.ordinal()] = this::checkCardStatus;
+        table[CommandType.SPLIT_PAYMENT.ordinal()] = (command, output) -> splitPayment(command);
+        table[CommandType.REPORT.ordinal()] = this::report;
+        table[CommandType.SPENDINGS_REPORT.ordinal()] = this::spendingsReport;
+        table[CommandType.ADD_INTEREST.ordinal()] = this::addInterest;
+        table[CommandType.CHANGE_INTEREST_RATE.ordinal()] = this::changeInterestRate;
+        table[CommandType.PRINT_USERS_DELTA.ordinal()] = this::printUsersDelta;
+        // Unknown commands are ignored
+        table[CommandType.UNKNOWN.ordinal()] = (command, output) -> { };
+        return table;
+    }
+
+    /**
+     * Finishes a run once every command was processed, resetting the number generators.
+     */
+    public void finishProcessing() {
+        idGenerator.reset();
+        if (journal != null) {
+            journal.appendFinish();
+        }
+    }
+
+    /**
+     * Starts recording the bank into a journal: every user and exchange rate added from
+     * now on, every command that may change the bank, before it runs, and the end of
+     * every run. Commands are appended in input order, as they are received. Attach it
+     * before loading the input, so the journal can rebuild the bank.
+     *
+     * @param commandJournal the journal to append to
+     */
+    public void attachJournal(final CommandJournal commandJournal) {
+        this.journal = commandJournal;
+    }
+
+    private void printUsers(final CommandInput command, final OutputSink output) {
+        // Stream the command result, one user at a time
+        output.write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("command", "printUsers");
+
+            // Iterate over all users in the bank system to print each user's info,
+            // replaying the users that did not change since they were last printed
+            generator.writeArrayFieldStart("output");
+            for (User user : users) {
+                Tools.writeUser(generator, user);
+            }
+            generator.writeEndArray();
 
-        // Create an array to hold the users
-        ArrayNode usersArray = objectMapper.createArrayNode();
+            generator.writeNumberField("timestamp", command.getTimestamp());
+            generator.writeEndObject();
+        });
 
-        // Iterate over all users in the bank system to print each user's info
-        for (User user : users) {
-            ObjectNode userNode = Tools.printUser(user);
-            usersArray.add(userNode);
+        // The next delta starts from this print
+        for (User user : changeLog.drain()) {
+            user.clearChanges();
         }
+    }
 
-        commandResultNode.set("output", usersArray);
-        commandResultNode.put("timestamp", command.getTimestamp());
+    /**
+     * Prints only what changed since the last printUsers or printUsersDelta: the changed
+     * users with their changed accounts, and the accounts and cards removed since.
+     */
+    private void printUsersDelta(final CommandInput command, final OutputSink output) {
+        List<ObjectNode> changes = new ArrayList<>();
+        for (User user : changeLog.drain()) {
+            changes.add(Tools.printUserChanges(user));
+            user.clearChanges();
+        }
+
+        output.write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("command", "printUsersDelta");
+
+            generator.writeArrayFieldStart("output");
+            for (ObjectNode change : changes) {
+                generator.writeTree(change);
+            }
+            generator.writeEndArray();
 
-        // Add the result node to the output
-        output.add(commandResultNode);
+            generator.writeNumberField("timestamp", command.getTimestamp());
+            generator.writeEndObject();
+        });
     }
 
     private void addAccount(final CommandInput command) {
-        User user = Tools.findUserByEmail(command.getEmail(), users);
+        User user = registry.findUserByEmail(command.getEmail());
 
         if (user == null) {
             return;
@@ -95,11 +404,11 @@ public class BankSystem {
 
         int timestamp = command.getTimestamp();
         String accountType = command.getAccountType();
-        String currency = command.getCurrency();
+        Currency currency = currencies.intern(command.getCurrency());
 
         Account account = null;
 
-        String iban = Utils.generateIBAN();
+        String iban = idGenerator.generateIBAN();
 
         // Create the account based on the account type
         if ("classic".equals(accountType)) {
@@ -117,17 +426,17 @@ public class BankSystem {
     }
 
     private void createCard(final CommandInput command) {
-        User user = Tools.findUserByEmail(command.getEmail(), users);
+        User user = registry.findUserByEmail(command.getEmail());
 
         if (user == null) {
             return;
         }
 
-        Account account = Tools.findAccountByIBAN(command.getAccount(), users);
+        Account account = registry.findAccountByIBAN(command.getAccount());
 
         if (account != null) {
             // Generate a new card number and create a new Card object
-            String cardNumber = org.poo.utils.Utils.generateCardNumber();
+            String cardNumber = idGenerator.generateCardNumber();
             Card card = new Card(user, account, cardNumber);
 
             // Add the card to the user's account
@@ -139,18 +448,18 @@ public class BankSystem {
     }
 
     private void createOneTimeCard(final CommandInput command) {
-        User user = Tools.findUserByEmail(command.getEmail(), users);
+        User user = registry.findUserByEmail(command.getEmail());
         int timestamp = command.getTimestamp();
 
         if (user == null) {
             return;
         }
 
-        Account account = Tools.findAccountByIBAN(command.getAccount(), users);
+        Account account = registry.findAccountByIBAN(command.getAccount());
 
         if (account != null) {
             // Generate a new card number and create a new OneTimeCard object
-            String cardNumber = org.poo.utils.Utils.generateCardNumber();
+            String cardNumber = idGenerator.generateCardNumber();
             OneTimeCard oneTimeCard = new OneTimeCard(user, account, cardNumber);
 
             // Add the one-time card to the user's account
@@ -162,15 +471,15 @@ public class BankSystem {
     }
 
     private void addFunds(final CommandInput command) {
-        Account account = Tools.findAccountByIBAN(command.getAccount(), users);
+        Account account = registry.findAccountByIBAN(command.getAccount());
 
         if (account != null) {
-            account.deposit(command.getAmount());
+            account.deposit(Money.toUnits(command.getAmount(), account.getCurrencyRef()));
         }
     }
 
-    private void deleteAccount(final CommandInput command, final ArrayNode output) {
-        User user = Tools.findUserByEmail(command.getEmail(), users);
+    private void deleteAccount(final CommandInput command, final OutputSink output) {
+        User user = registry.findUserByEmail(command.getEmail());
         int timestamp = command.getTimestamp();
 
         if (user == null) {
@@ -178,7 +487,7 @@ public class BankSystem {
         }
 
         String iban = command.getAccount();
-        Account foundAccount = Tools.findAccountByIBAN(iban, users);
+        Account foundAccount = registry.findAccountByIBAN(iban);
 
         if (foundAccount == null) {
             return;
@@ -210,7 +519,7 @@ public class BankSystem {
             commandResultNode.set("output", outputNode);
             commandResultNode.put("timestamp", command.getTimestamp());
 
-            output.add(commandResultNode);
+            output.write(commandResultNode);
         } else {
             // Handle error if balance is not zero
             deleteAccountError(command, output);
@@ -220,7 +529,8 @@ public class BankSystem {
         }
     }
 
-    private void deleteAccountError(final CommandInput command, final ArrayNode output) {
+    private void deleteAccountError(final CommandInput command, final OutputSink output) {
+        metrics.recordError(CommandType.DELETE_ACCOUNT);
         ObjectNode errorNode = objectMapper.createObjectNode();
         errorNode.put("command", "deleteAccount");
 
@@ -232,40 +542,36 @@ public class BankSystem {
         errorNode.set("output", errorOutput);
         errorNode.put("timestamp", command.getTimestamp());
 
-        output.add(errorNode);
+        output.write(errorNode);
     }
 
     private void deleteCard(final CommandInput command) {
         String cardNumber = command.getCardNumber();
         int timestamp = command.getTimestamp();
 
-        // Iterate through all users to find the card to delete
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                for (Card card : account.getCards()) {
-                    if (card.getCardNumber().equals(cardNumber)) {
-                        // Add the transaction to the user's transaction list
-                        transactionService.addDeletedCardTransaction(timestamp, account,
-                                                                            card, user);
-                        // Remove the card from the account
-                        account.removeCard(card);
-                        return;
-                    }
-                }
-            }
+        CardEntry entry = registry.findCard(cardNumber);
+        if (entry == null) {
+            return;
         }
+
+        // Add the transaction to the user's transaction list
+        transactionService.addDeletedCardTransaction(timestamp, entry.getAccount(),
+                                                        entry.getCard(), entry.getOwner());
+        // Remove the card from the account
+        entry.getAccount().removeCard(entry.getCard());
     }
 
-    private void payOnline(final CommandInput command, final ArrayNode output) {
+    private void payOnline(final CommandInput command, final OutputSink output) {
         String email = command.getEmail();
         String cardNumber = command.getCardNumber();
-        double amount = command.getAmount();
-        String currency = command.getCurrency();
+        Currency currency = currencies.intern(command.getCurrency());
+        // Without a currency the amount cannot be converted, so nothing is paid
+        long amount = currency == null ? 0 : Money.toUnits(command.getAmount(), currency);
         int timestamp = command.getTimestamp();
         String description = command.getDescription();
         String commerciant = command.getCommerciant();
 
-        User user = Tools.findUserByEmail(email, users);
+        User user = registry.findUserByEmail(email);
 
         if (user == null) {
             return;
@@ -274,18 +580,11 @@ public class BankSystem {
         Card card = null;
         Account account = null;
 
-        // Search for the card in the user's accounts
-        for (Account acc : user.getAccounts()) {
-            for (Card c : acc.getCards()) {
-                if (c.getCardNumber().equals(cardNumber)) {
-                    card = c;
-                    account = acc;
-                    break;
-                }
-            }
-            if (card != null) {
-                break;
-            }
+        // The card has to belong to one of the user's accounts
+        CardEntry entry = registry.findCard(cardNumber);
+        if (entry != null && entry.getOwner() == user) {
+            card = entry.getCard();
+            account = entry.getAccount();
         }
 
         if (card == null || account == null) {
@@ -305,13 +604,14 @@ public class BankSystem {
     }
 
     private void performPayment(final User user, final Card card, final Account account,
-                                final double amount, final String currency,
+                                final long amount, final Currency currency,
                                 final String commerciant, final int timestamp,
-                                final ArrayNode output) {
+                                final OutputSink output) {
         // Convert the amount to the correct currency if necessary
-        double finalAmount = Tools.calculateFinalAmount(account, amount, exchangeRates, currency);
+        long finalAmount = Tools.calculateFinalAmount(account, amount,
+                getExchangeRateTable(), currency);
 
-        double balance = account.getBalance();
+        long balance = account.getBalance();
 
         // Check if the account has enough balance for the payment
         if (balance >= finalAmount) {
@@ -327,7 +627,7 @@ public class BankSystem {
             account.spend(finalAmount);
             // Add the transaction to the user's transaction list
             transactionService.addOnlinePaymentTransaction(timestamp,
-                    card, finalAmount, commerciant, user, account.getIban());
+                    card, account, finalAmount, commerciant, user);
 
             if (card.isOneTimeCard()) {
                 handleOneTimeCard(user, card, account, timestamp);
@@ -357,7 +657,7 @@ public class BankSystem {
             transactionService.addDeletedCardTransaction(timestamp, account, card, user);
 
             // Creating a new card after payment
-            String newCardNumber = Utils.generateCardNumber();
+            String newCardNumber = idGenerator.generateCardNumber();
             OneTimeCard newOneTimeCard = new OneTimeCard(user, account, newCardNumber);
 
             // Adding the new card in account
@@ -369,7 +669,8 @@ public class BankSystem {
     }
 
     private void payOnlineError(final String description, final int timestamp,
-                                                        final ArrayNode output) {
+                                                        final OutputSink output) {
+        metrics.recordError(CommandType.PAY_ONLINE);
         ObjectNode errorNode = objectMapper.createObjectNode();
         errorNode.put("command", "payOnline");
 
@@ -381,45 +682,46 @@ public class BankSystem {
 
         errorNode.put("timestamp", timestamp);
 
-        output.add(errorNode);
+        output.write(errorNode);
     }
 
     private void sendMoney(final CommandInput command) {
         // Get sender and receiver account info
         String senderIBAN = command.getAccount();
         String receiverIBAN = command.getReceiver();
-        double amount = command.getAmount();
         String description = command.getDescription();
         int timestamp = command.getTimestamp();
 
-        Account senderAccount = Tools.findAccountByIBAN(senderIBAN, users);
-        Account receiverAccount = Tools.findAccountByIBAN(receiverIBAN, users);
+        Account senderAccount = registry.findAccountByIBAN(senderIBAN);
+        Account receiverAccount = registry.findAccountByIBAN(receiverIBAN);
 
         // Check if both accounts exist
         if (senderAccount == null || receiverAccount == null) {
             return;
         }
 
+        // The amount is given in the sender's currency
+        long amount = Money.toUnits(command.getAmount(), senderAccount.getCurrencyRef());
+
         // Convert the amount to the receiver's currency if necessary
-        double finalAmount = amount;
-        double exchangeRate = 1;
+        long finalAmount = amount;
 
         // If the sender and receiver have different currencies, perform currency conversion
-        if (!senderAccount.getCurrency().equals(receiverAccount.getCurrency())) {
-            exchangeRate = ExchangeRate.getExchangeRate(
-                    senderAccount.getCurrency(),
-                    receiverAccount.getCurrency(),
-                    exchangeRates
+        if (senderAccount.getCurrencyId() != receiverAccount.getCurrencyId()) {
+            double exchangeRate = getExchangeRateTable().getRate(
+                    senderAccount.getCurrencyRef(),
+                    receiverAccount.getCurrencyRef()
             );
             if (exchangeRate == 0) {
                 return;
             }
-            finalAmount = amount * exchangeRate;
+            finalAmount = Money.convert(amount, senderAccount.getCurrencyRef(),
+                    receiverAccount.getCurrencyRef(), exchangeRate);
         }
 
         // Check if the sender has enough funds for the transfer
         if (senderAccount.getBalance() < amount) {
-            User user = Tools.findUserByAccount(senderIBAN, users);
+            User user = registry.findUserByAccount(senderIBAN);
             // Add the transaction to the user's transaction list
             transactionService.addInsufficientFundsTransaction(timestamp,
                     "Insufficient funds", user, senderIBAN);
@@ -432,10 +734,9 @@ public class BankSystem {
 
         // Adding transactions for both the sender and the receiver
         transactionService.addSendMoneyTransaction(timestamp, senderAccount,
-                receiverAccount, amount, senderAccount.getCurrency(), description);
+                receiverAccount, amount, senderAccount.getCurrencyRef(), description);
         transactionService.addReceivedMoneyTransaction(timestamp, senderAccount,
-                receiverAccount, amount, exchangeRate, receiverAccount.getCurrency(),
-                                                                        description);
+                receiverAccount, finalAmount, receiverAccount.getCurrencyRef(), description);
     }
 
     private void setAlias(final CommandInput command) {
@@ -443,12 +744,12 @@ public class BankSystem {
         String alias = command.getAlias();
         String iban = command.getAccount();
 
-        User user = Tools.findUserByEmail(email, users);
+        User user = registry.findUserByEmail(email);
         if (user == null) {
             return;
         }
 
-        Account account = Tools.findAccountByIBAN(iban, users);
+        Account account = registry.findAccountByIBAN(iban);
         if (account == null) {
             return;
         }
@@ -456,82 +757,136 @@ public class BankSystem {
         account.setAlias(alias);
     }
 
-    private void printTransactions(final CommandInput command, final ArrayNode output) {
+    private void printTransactions(final CommandInput command, final OutputSink output) {
         String email = command.getEmail();
         int timestamp = command.getTimestamp();
 
-        User user = Tools.findUserByEmail(email, users);
+        User user = registry.findUserByEmail(email);
 
         if (user == null) {
             return;
         }
 
-        // Create the result node for the transaction output
-        ObjectNode resultNode = objectMapper.createObjectNode();
-        resultNode.put("command", "printTransactions");
-        resultNode.put("timestamp", timestamp);
+        if (command.getLimit() != null) {
+            printTransactionsPage(command, user, output);
+            return;
+        }
 
-        // Get all transactions for the user
-        List<Transaction> transactions = new ArrayList<>(user.getTransactions());
+        // Stream the command result, one transaction at a time
+        output.write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("command", "printTransactions");
+            generator.writeNumberField("timestamp", timestamp);
 
-        // Get the nodes representing the transactions
-        ArrayNode transactionsArray = Tools.getTransactions(transactions);
-        resultNode.set("output", transactionsArray);
+            generator.writeFieldName("output");
+            Tools.writeTransactions(generator, user.getTransactions());
 
-        // Add the final result node to the output array
-        output.add(resultNode);
+            generator.writeEndObject();
+        });
     }
 
-    private void setMinimumBalance(final CommandInput command) {
+    /**
+     * Prints one page of a user's transactions, optionally only those of an account.
+     * The page is a slice of a view over the user's transactions, so nothing is copied
+     * and only the page is read and written. The cursor, returned in "nextCursor" by the
+     * previous page, is the timestamp and store row of the last transaction it printed.
+     * The page continues after that key rather than at a position, so a transaction
+     * inserted out of timestamp order in the meantime is neither printed twice nor skipped.
+     */
+    private void printTransactionsPage(final CommandInput command, final User user,
+                                       final OutputSink output) {
         String iban = command.getAccount();
-        double limit = command.getAmount();
+        Integer afterTimestamp = command.getAfterTimestamp();
+
+        List<Transaction> history;
+        int first = 0;
+        if (iban == null) {
+            history = user.getTransactions();
+            if (afterTimestamp != null) {
+                first = user.getTransactionStore().firstRowAfter(afterTimestamp);
+            }
+        } else {
+            history = user.getTransactionIndex().transactions(iban);
+            if (afterTimestamp != null) {
+                first = user.getTransactionIndex().firstAfter(iban, afterTimestamp);
+            }
+        }
+        if (command.getCursor() != null) {
+            if (iban == null) {
+                first = Math.max(first,
+                        user.getTransactionStore().rowAfter(command.getCursor()));
+            } else {
+                first = Math.max(first,
+                        user.getTransactionIndex().positionAfter(iban, command.getCursor()));
+            }
+        }
+
+        int size = history.size();
+        int from = Math.min(first, size);
+        int to = from + Math.min(Math.max(command.getLimit(), 0), size - from);
+        List<Transaction> page = history.subList(from, to);
+        long nextCursor;
+        if (to == 0) {
+            nextCursor = TransactionStore.START_CURSOR;
+        } else if (iban == null) {
+            nextCursor = user.getTransactionStore().cursorOf(to - 1);
+        } else {
+            nextCursor = user.getTransactionIndex().cursorAt(iban, to - 1);
+        }
+
+        output.write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("command", "printTransactions");
+            generator.writeNumberField("timestamp", command.getTimestamp());
+
+            generator.writeObjectFieldStart("output");
+            generator.writeFieldName("transactions");
+            Tools.writeTransactions(generator, page);
+            if (to < size) {
+                generator.writeNumberField("nextCursor", nextCursor);
+            }
+            generator.writeEndObject();
+
+            generator.writeEndObject();
+        });
+    }
 
-        Account account = Tools.findAccountByIBAN(iban, users);
+    private void setMinimumBalance(final CommandInput command) {
+        String iban = command.getAccount();
+        Account account = registry.findAccountByIBAN(iban);
 
         if (account != null) {
-            account.setMinBalance(limit);
+            account.setMinBalance(Money.toUnits(command.getAmount(), account.getCurrencyRef()));
         }
     }
 
-    private void checkCardStatus(final CommandInput command, final ArrayNode output) {
+    private void checkCardStatus(final CommandInput command, final OutputSink output) {
         String cardNumber = command.getCardNumber();
         int timestamp = command.getTimestamp();
 
         // Find the card
-        Card foundCard = null;
-        Account foundAccount = null;
-        User foundUser = null;
-
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                for (Card card : account.getCards()) {
-                    if (card.getCardNumber().equals(cardNumber)) {
-                        foundCard = card;
-                        foundAccount = account;
-                        foundUser = user;
-                        break;
-                    }
-                }
-            }
-        }
+        CardEntry entry = registry.findCard(cardNumber);
 
         // If no card is found, return an error response
-        if (foundCard == null) {
+        if (entry == null) {
             cardCheckError("checkCardStatus", timestamp, output);
             return;
         }
+        Account foundAccount = entry.getAccount();
 
         // If the account balance is near the minimum threshold,
         // freeze the card and add a warning transaction
-        if (foundAccount.getBalance() - foundAccount.getMinBalance() <= 30) {
+        if (foundAccount.getBalance() - foundAccount.getMinBalance()
+                <= Money.toUnits(30, foundAccount.getCurrencyRef())) {
             String iban = foundAccount.getIban();
-            transactionService.addWarningTransaction(timestamp, foundUser, iban);
-            foundCard.freezeCard();
+            transactionService.addWarningTransaction(timestamp, entry.getOwner(), iban);
+            entry.getCard().freezeCard();
         }
     }
 
     private void cardCheckError(final String command, final int timestamp,
-                                                        final ArrayNode output) {
+                                                        final OutputSink output) {
+        metrics.recordError(CommandType.of(command));
         ObjectNode resultNode = objectMapper.createObjectNode();
         resultNode.put("command", command);
 
@@ -541,24 +896,30 @@ public class BankSystem {
         resultNode.set("output", outputNode);
         resultNode.put("timestamp", timestamp);
 
-        output.add(resultNode);
+        output.write(resultNode);
     }
 
     private void splitPayment(final CommandInput command) {
         List<String> ibans = command.getAccounts();
-        double totalAmount = command.getAmount();
-        double splitAmount = totalAmount / ibans.size();
-        String currency = command.getCurrency();
+        Currency currency = currencies.intern(command.getCurrency());
         int timestamp = command.getTimestamp();
 
+        // Without a currency the amounts cannot be kept in minor units
+        if (currency == null) {
+            return;
+        }
+        long totalAmount = Money.toUnits(command.getAmount(), currency);
+        long splitAmount = Money.divide(totalAmount, ibans.size());
+
         boolean canDoSplit = true;
         String cheapIBAN = null;
 
         // Check all IBANs to see if each account has enough balance for the split payment
         for (String iban : ibans) {
-            Account account = Tools.findAccountByIBAN(iban, users);
-            double finalSplitAmount =
-                    Tools.calculateFinalAmount(account, splitAmount, exchangeRates, currency);
+            Account account = registry.findAccountByIBAN(iban);
+            long finalSplitAmount =
+                    Tools.calculateFinalAmount(account, splitAmount,
+                            getExchangeRateTable(), currency);
 
             if (account.getBalance() < finalSplitAmount) {
                 canDoSplit = false;
@@ -569,10 +930,11 @@ public class BankSystem {
 
         if (canDoSplit) {
             for (String iban : ibans) {
-                Account account = Tools.findAccountByIBAN(iban, users);
-                User currUser = Tools.findUserByAccount(iban, users);
-                double finalSplitAmount =
-                        Tools.calculateFinalAmount(account, splitAmount, exchangeRates, currency);
+                Account account = registry.findAccountByIBAN(iban);
+                User currUser = registry.findUserByAccount(iban);
+                long finalSplitAmount =
+                        Tools.calculateFinalAmount(account, splitAmount,
+                                getExchangeRateTable(), currency);
                 account.spend(finalSplitAmount);
 
                 // Add the new card transaction to the user's transaction list
@@ -582,7 +944,7 @@ public class BankSystem {
         } else {
             // Create and add an error transaction for each user involved
             for (String iban : ibans) {
-                    User user = Tools.findUserByAccount(iban, users);
+                    User user = registry.findUserByAccount(iban);
                     if (user != null) {
                         transactionService.addSplitErrorTransaction(timestamp,
                                 splitAmount, totalAmount, currency, cheapIBAN, ibans, user);
@@ -591,31 +953,64 @@ public class BankSystem {
         }
     }
 
-    private void report(final CommandInput command, final ArrayNode output) {
+    private void report(final CommandInput command, final OutputSink output) {
         ObjectNode reportNode = objectMapper.createObjectNode();
         reportNode.put("command", command.getCommand());
 
         // Create a filter object for filtering the transactions in the report
         TransactionFilter filter = new ReportTransactionFilter();
 
-        // Generate the data for the report using a utility method from Tools
-        ObjectNode outputNode = Tools.generateReportData(command, filter,
-                                    false, users, exchangeRates);
+        // Generate the data for the report, unless it is cached and still valid
+        ObjectNode outputNode = reportOutput(command, filter, false);
+        recordReportError(command, outputNode);
 
         reportNode.set("output", outputNode);
         reportNode.put("timestamp", command.getTimestamp());
 
-        output.add(reportNode);
+        output.write(reportNode);
+    }
+
+    /**
+     * Returns the output of a report from the cache if the account has not changed since
+     * it was built, or else builds it and caches it. Errors are not cached.
+     */
+    private ObjectNode reportOutput(final CommandInput command, final TransactionFilter filter,
+                                    final boolean includeCommerciants) {
+        String iban = command.getAccount();
+        Account account = registry.findAccountByIBAN(iban);
+        ObjectNode cached = reportCache.get(command.getType(), iban,
+                command.getStartTimestamp(), command.getEndTimestamp(), account);
+        if (cached != null) {
+            return cached;
+        }
+
+        ObjectNode outputNode = Tools.generateReportData(command, filter,
+                includeCommerciants, registry, getExchangeRateTable());
+        if (account != null && !outputNode.has("description")) {
+            reportCache.put(command.getType(), iban, command.getStartTimestamp(),
+                    command.getEndTimestamp(), account, outputNode);
+        }
+        return outputNode;
     }
 
-    private void spendingsReport(final CommandInput command, final ArrayNode output) {
+    /**
+     * Counts a report that could not be built, which Tools returns as a description.
+     */
+    private void recordReportError(final CommandInput command, final ObjectNode outputNode) {
+        if (outputNode.has("description")) {
+            metrics.recordError(command.getType());
+        }
+    }
+
+    private void spendingsReport(final CommandInput command, final OutputSink output) {
         String iban = command.getAccount();
         int timestamp = command.getTimestamp();
 
-        Account account = Tools.findAccountByIBAN(iban, users);
+        Account account = registry.findAccountByIBAN(iban);
 
         // Check if the account exists and if it is a savings account
         if (account != null && account.isSavingsAccount()) {
+            metrics.recordError(CommandType.SPENDINGS_REPORT);
             ObjectNode errorNode = objectMapper.createObjectNode();
             errorNode.put("command", command.getCommand());
 
@@ -626,7 +1021,7 @@ public class BankSystem {
             errorNode.set("output", errorOutput);
             errorNode.put("timestamp", timestamp);
 
-            output.add(errorNode);
+            output.write(errorNode);
             return;
         }
 
@@ -637,21 +1032,21 @@ public class BankSystem {
         // Create a specific filter for spendings transactions
         TransactionFilter filter = new SpendingsTransactionFilter();
 
-        // Generate the report data using the filter and provided parameters
-        ObjectNode outputNode = Tools.generateReportData(command, filter,
-                            true, users, exchangeRates);
+        // Generate the report data, unless it is cached and still valid
+        ObjectNode outputNode = reportOutput(command, filter, true);
+        recordReportError(command, outputNode);
 
         reportNode.set("output", outputNode);
         reportNode.put("timestamp", timestamp);
 
-        output.add(reportNode);
+        output.write(reportNode);
     }
 
-    private void addInterest(final CommandInput command, final ArrayNode output) {
+    private void addInterest(final CommandInput command, final OutputSink output) {
         int timestamp = command.getTimestamp();
         String iban = command.getAccount();
 
-        Account account = Tools.findAccountByIBAN(iban, users);
+        Account account = registry.findAccountByIBAN(iban);
 
         if (account == null) {
             return;
@@ -661,19 +1056,19 @@ public class BankSystem {
         if (account.isSavingsAccount()) {
             SavingsAccount savingsAccount = (SavingsAccount) account;
             double interestRate = savingsAccount.getInterestRate();
-            double balance = savingsAccount.getBalance();
-            savingsAccount.deposit(interestRate * balance);
+            long balance = savingsAccount.getBalance();
+            savingsAccount.deposit(Money.multiply(balance, interestRate));
         } else {
             interestError("addInterest", timestamp, output);
         }
     }
 
-    private void changeInterestRate(final CommandInput command, final ArrayNode output) {
+    private void changeInterestRate(final CommandInput command, final OutputSink output) {
         int timestamp = command.getTimestamp();
         String iban = command.getAccount();
 
-        Account account = Tools.findAccountByIBAN(iban, users);
-        User user = Tools.findUserByAccount(iban, users);
+        Account account = registry.findAccountByIBAN(iban);
+        User user = registry.findUserByAccount(iban);
 
         double interestRate = command.getInterestRate();
 
@@ -693,14 +1088,17 @@ public class BankSystem {
     }
 
     private void interestError(final String commandName, final int timestamp,
-                                                        final ArrayNode output) {
-        ObjectNode result = output.addObject();
+                                                        final OutputSink output) {
+        metrics.recordError(CommandType.of(commandName));
+        ObjectNode result = objectMapper.createObjectNode();
         result.put("command", commandName);
         result.put("timestamp", timestamp);
 
         ObjectNode errorOutput = result.putObject("output");
         errorOutput.put("description", "This is not a savings account");
         errorOutput.put("timestamp", timestamp);
+
+        output.write(result);
     }
 }
 
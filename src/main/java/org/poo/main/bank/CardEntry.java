@@ -0,0 +1,33 @@
+package org.poo.main.bank;
+
+import org.poo.main.accounts.Account;
+import org.poo.main.cards.Card;
+import org.poo.main.user.User;
+
+/**
+ * Entry of the registry's card index: a card together with the account
+ * it belongs to and the user owning that account.
+ */
+public final class CardEntry {
+    private final Card card;
+    private final Account account;
+    private final User owner;
+
+    public CardEntry(final Card card, final Account account, final User owner) {
+        this.card = card;
+        this.account = account;
+        this.owner = owner;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public User getOwner() {
+        return owner;
+    }
+}
@@ -0,0 +1,209 @@
+package org.poo.main.bank;
+
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandType;
+import org.poo.main.accounts.Account;
+import org.poo.main.exchange_rate.Currency;
+import org.poo.main.exchange_rate.Money;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Peephole optimizer in front of a serial command processor. It collects runs of
+ * addFunds, setMinimumBalance and setAlias commands and hands each run over with the
+ * redundant commands merged or dropped.
+ *
+ * None of these commands produces a result or a transaction, reads what the others
+ * write, or creates or deletes an account, so inside a run they commute and every
+ * account either exists for the whole run or for none of it. That makes it safe to:
+ * - keep only the last setMinimumBalance of an account, which overwrites the others;
+ * - keep only the last setAlias of an account by a registered user, and drop the
+ *   ones by unknown users, which do nothing;
+ * - merge the addFunds of an account into one deposit of their total, summed in
+ *   minor units like the single deposits would be, and drop the ones of unknown
+ *   accounts.
+ * Any other command ends the run, and so do the window size and the end of the input.
+ * The registry is consulted when a run is handed over, so the processor behind it must
+ * run every command before taking the next one.
+ */
+public final class CommandCoalescer implements CommandProcessor {
+    /** The longest run collected before it is handed over. */
+    public static final int DEFAULT_WINDOW = 256;
+
+    private final BankRegistry registry;
+    private final CommandProcessor downstream;
+    private final int window;
+    private final List<CommandInput> run = new ArrayList<>();
+    private long received;
+    private long forwarded;
+
+    /**
+     * @param registry   the registry of the bank the commands run on
+     * @param downstream the serial processor running the optimized commands
+     * @param window     the longest run collected before it is handed over
+     */
+    public CommandCoalescer(final BankRegistry registry, final CommandProcessor downstream,
+                            final int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("The window must be positive");
+        }
+        this.registry = registry;
+        this.downstream = downstream;
+        this.window = window;
+    }
+
+    @Override
+    public void processCommand(final CommandInput command) {
+        received++;
+        if (!isCoalescible(command.getType())) {
+            flush();
+            forward(command);
+            return;
+        }
+        run.add(command);
+        if (run.size() >= window) {
+            flush();
+        }
+    }
+
+    @Override
+    public void finishProcessing() {
+        flush();
+        downstream.finishProcessing();
+    }
+
+    /**
+     * @return the number of commands received
+     */
+    public long getReceived() {
+        return received;
+    }
+
+    /**
+     * @return the number of commands handed over, after merging and dropping
+     */
+    public long getForwarded() {
+        return forwarded;
+    }
+
+    private static boolean isCoalescible(final CommandType type) {
+        return type == CommandType.ADD_FUNDS || type == CommandType.SET_MINIMUM_BALANCE
+                || type == CommandType.SET_ALIAS;
+    }
+
+    /**
+     * Hands the collected run over, keeping the surviving commands in input order.
+     */
+    private void flush() {
+        if (run.isEmpty()) {
+            return;
+        }
+
+        // The position of the command that survives for every account and type
+        Map<String, Integer> lastMinimumBalance = new HashMap<>();
+        Map<String, Integer> lastAlias = new HashMap<>();
+        Map<String, Deposit> deposits = new HashMap<>();
+        for (int i = 0; i < run.size(); i++) {
+            CommandInput command = run.get(i);
+            switch (command.getType()) {
+                case SET_MINIMUM_BALANCE -> lastMinimumBalance.put(command.getAccount(), i);
+                case SET_ALIAS -> {
+                    if (registry.findUserByEmail(command.getEmail()) != null) {
+                        lastAlias.put(command.getAccount(), i);
+                    }
+                }
+                default -> deposits.computeIfAbsent(command.getAccount(), Deposit::new).add(i);
+            }
+        }
+
+        for (Deposit deposit : deposits.values()) {
+            deposit.merge();
+        }
+
+        for (int i = 0; i < run.size(); i++) {
+            CommandInput command = run.get(i);
+            switch (command.getType()) {
+                case SET_MINIMUM_BALANCE -> {
+                    if (lastMinimumBalance.get(command.getAccount()) == i) {
+                        forward(command);
+                    }
+                }
+                case SET_ALIAS -> {
+                    Integer last = lastAlias.get(command.getAccount());
+                    if (last != null && last == i) {
+                        forward(command);
+                    }
+                }
+                default -> deposits.get(command.getAccount()).forward(i);
+            }
+        }
+        run.clear();
+    }
+
+    private void forward(final CommandInput command) {
+        forwarded++;
+        downstream.processCommand(command);
+    }
+
+    /**
+     * The addFunds commands of one account within a run.
+     */
+    private final class Deposit {
+        private final Account account;
+        private final List<Integer> positions = new ArrayList<>();
+        private CommandInput merged;
+
+        Deposit(final String iban) {
+            this.account = registry.findAccountByIBAN(iban);
+        }
+
+        void add(final int position) {
+            positions.add(position);
+        }
+
+        /**
+         * Merges the commands into one deposit of their total, unless the total does not
+         * survive a round trip through an amount.
+         */
+        void merge() {
+            if (account == null || positions.size() == 1) {
+                return;
+            }
+            Currency currency = account.getCurrencyRef();
+            long total = 0;
+            for (int position : positions) {
+                total += Money.toUnits(run.get(position).getAmount(), currency);
+            }
+            double amount = Money.toAmount(total, currency);
+            if (Money.toUnits(amount, currency) != total) {
+                return;
+            }
+
+            CommandInput last = run.get(positions.get(positions.size() - 1));
+            merged = new CommandInput();
+            merged.setCommand(last.getCommand());
+            merged.setEmail(last.getEmail());
+            merged.setAccount(last.getAccount());
+            merged.setAmount(amount);
+            merged.setTimestamp(last.getTimestamp());
+        }
+
+        /**
+         * Hands over what the command at a position turns into: nothing for an unknown
+         * account, the merged command in place of the last one, or else the command.
+         */
+        void forward(final int position) {
+            if (account == null) {
+                return;
+            }
+            if (merged == null) {
+                CommandCoalescer.this.forward(run.get(position));
+            } else if (position == positions.get(positions.size() - 1)) {
+                CommandCoalescer.this.forward(merged);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.poo.main.bank;
+
+import org.poo.fileio.CommandInput;
+import org.poo.main.io.OutputSink;
+
+/**
+ * Runs one type of command on the bank.
+ */
+@FunctionalInterface
+public interface CommandHandler {
+    /**
+     * Runs a command.
+     *
+     * @param command the command to run
+     * @param output  the sink receiving the command results
+     */
+    void handle(CommandInput command, OutputSink output);
+}
@@ -0,0 +1,21 @@
+package org.poo.main.bank;
+
+import org.poo.fileio.CommandInput;
+
+/**
+ * Consumer of the commands of a run, fed one by one in input order.
+ */
+public interface CommandProcessor {
+
+    /**
+     * Processes the next command of the run.
+     *
+     * @param command the command to process
+     */
+    void processCommand(CommandInput command);
+
+    /**
+     * Finishes the run once every command was handed over.
+     */
+    void finishProcessing();
+}
@@ -0,0 +1,146 @@
+package org.poo.main.bank;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.fileio.CommandType;
+import org.poo.main.accounts.Account;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of the outputs of report and spendingsReport, keyed by the command,
+ * the IBAN and the time window.
+ *
+ * An entry remembers the account it was built for and the account's version at the
+ * time. The version changes with the balance and with every transaction indexed under
+ * the IBAN, which is everything a report reads, so an entry is still valid if the IBAN
+ * names the same account at the same version. That check is O(1), while rebuilding the
+ * report filters, aggregates and serializes the whole window again.
+ *
+ * The cache holds at most a number of entries and a number of transactions over all of
+ * them, evicting the least recently used entries first. Cached outputs are shared with
+ * every command that hits them, so they must not be modified. The methods are
+ * synchronized, since the shards of the sharded engine report on their own accounts
+ * concurrently.
+ */
+public final class ReportCache {
+    /** The default maximum number of cached reports. */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /** The default maximum number of transactions over all cached reports. */
+    public static final int DEFAULT_MAX_TRANSACTIONS = 100_000;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int capacity;
+    private final int maxTransactions;
+    private final Map<Key, Entry> entries =
+            new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true); // In access order
+    private int transactions;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity        the maximum number of cached reports
+     * @param maxTransactions the maximum number of transactions over all cached reports
+     */
+    public ReportCache(final int capacity, final int maxTransactions) {
+        if (capacity < 0 || maxTransactions < 0) {
+            throw new IllegalArgumentException("The bounds of the cache must not be negative");
+        }
+        this.capacity = capacity;
+        this.maxTransactions = maxTransactions;
+    }
+
+    /**
+     * Returns the cached output of a report, if it is still valid.
+     *
+     * @param type      the type of the report command
+     * @param iban      the IBAN of the report
+     * @param start     the first timestamp of the window
+     * @param end       the last timestamp of the window
+     * @param account   the account the IBAN names now, or null if none
+     * @return the cached output, or null if there is none or the account changed since
+     */
+    public synchronized ObjectNode get(final CommandType type, final String iban,
+                                       final int start, final int end,
+                                       final Account account) {
+        Key key = new Key(type, iban, start, end);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.account != account || entry.version != account.getVersion()) {
+            remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.output;
+    }
+
+    /**
+     * Caches the output of a report built for an account at its current version.
+     *
+     * @param type    the type of the report command
+     * @param iban    the IBAN of the report
+     * @param start   the first timestamp of the window
+     * @param end     the last timestamp of the window
+     * @param account the account of the report
+     * @param output  the output of the report, which must not be modified afterwards
+     */
+    public synchronized void put(final CommandType type, final String iban, final int start,
+                                 final int end, final Account account,
+                                 final ObjectNode output) {
+        int weight = output.path("transactions").size();
+        if (capacity == 0 || weight > maxTransactions) {
+            return;
+        }
+        Key key = new Key(type, iban, start, end);
+        remove(key);
+        entries.put(key, new Entry(account, account.getVersion(), output, weight));
+        transactions += weight;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > capacity || transactions > maxTransactions) {
+            transactions -= eldest.next().weight;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return the number of lookups that found a valid report
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that had to build the report
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of cached reports
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void remove(final Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            transactions -= entry.weight;
+        }
+    }
+
+    private record Key(CommandType type, String iban, int start, int end) {
+    }
+
+    private record Entry(Account account, long version, ObjectNode output, int weight) {
+    }
+}
@@ -0,0 +1,375 @@
+package org.poo.main.bank;
+
+import org.poo.fileio.CommandInput;
+import org.poo.main.io.BufferedOutputSink;
+import org.poo.main.io.OutputSink;
+import org.poo.main.user.User;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-core command processor running a BankSystem on several worker shards.
+ * Users, together with their accounts and cards, are partitioned across the shards by a
+ * hash of the user's email, and every shard runs the commands it receives in input order
+ * on its own thread. A command touching a single shard, like addFunds or payOnline, runs
+ * on that shard in parallel with the other shards' commands.
+ *
+ * A command touching several shards, like a sendMoney between two users or a
+ * splitPayment, is queued on all of them. Each shard stops when it reaches the command,
+ * the last one to arrive runs it and the others wait until it is done, so it sees every
+ * earlier command of its shards and no later one. Commands are queued on every shard in
+ * input order, so two such commands always meet in the same order and never wait for
+ * each other. The IBAN and card-number generators are owned by fixed shards, which keeps
+ * the generated numbers in input order, and printUsers or commands naming an unknown
+ * IBAN or card run on all the shards at once. The results of every command are buffered
+ * and written in input order, so the output is identical to the serial run. A journal
+ * attached to the bank receives the commands as they are queued, also in input order, so
+ * replaying it serially rebuilds the same bank.
+ */
+public final class ShardedBankEngine implements CommandProcessor, Closeable {
+    private static final int MAX_SHARDS = 64;
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int MAX_PENDING = 65536;
+    private static final int IBAN_GENERATOR_SHARD = 0;
+    private static final int CARD_GENERATOR_SHARD = 1;
+
+    private final BankSystem bankSystem;
+    private final BankRegistry registry;
+    private final OutputSink output;
+    private final int shardCount;
+    private final long allShards;
+    private final Shard[] shards;
+    private final Deque<Task> pending = new ArrayDeque<>();
+
+    // The last queued commands that may create IBANs or cards
+    private Task lastIbanProducer;
+    private Task lastCardProducer;
+    private boolean closed;
+
+    /**
+     * Starts the shards of the engine.
+     *
+     * @param bankSystem the bank system to run the commands on
+     * @param shardCount the number of worker shards
+     * @param output     the sink receiving the command results
+     */
+    public ShardedBankEngine(final BankSystem bankSystem, final int shardCount,
+                             final OutputSink output) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("The number of shards must be between 1 and "
+                    + MAX_SHARDS);
+        }
+        this.bankSystem = bankSystem;
+        this.registry = bankSystem.getRegistry();
+        this.output = output;
+        this.shardCount = shardCount;
+        this.allShards = shardCount == MAX_SHARDS ? -1L : (1L << shardCount) - 1;
+
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].start();
+        }
+    }
+
+    /**
+     * Queues a command on the shards it touches and writes the results of the commands
+     * that are already done.
+     *
+     * @param command the command to process
+     */
+    @Override
+    public void processCommand(final CommandInput command) {
+        // Journal the command here, since the shards finish commands out of input order
+        bankSystem.journalCommand(command);
+
+        long footprint = footprint(command);
+        Task task = new Task(command, Long.bitCount(footprint));
+
+        if (footprint == allShards) {
+            // Runs alone, so it may create IBANs and cards like any producer
+            lastIbanProducer = task;
+            lastCardProducer = task;
+        } else {
+            if ((footprint & bit(IBAN_GENERATOR_SHARD)) != 0) {
+                lastIbanProducer = task;
+            }
+            if ((footprint & bit(CARD_GENERATOR_SHARD)) != 0) {
+                lastCardProducer = task;
+            }
+        }
+
+        for (int i = 0; i < shardCount; i++) {
+            if ((footprint & bit(i)) != 0) {
+                shards[i].enqueue(task);
+            }
+        }
+        pending.addLast(task);
+
+        flush(pending.size() > MAX_PENDING);
+    }
+
+    /**
+     * Waits for every queued command, writes the remaining results and finishes the run.
+     */
+    @Override
+    public void finishProcessing() {
+        try {
+            while (!pending.isEmpty()) {
+                flush(true);
+            }
+        } finally {
+            close();
+        }
+        bankSystem.finishProcessing();
+    }
+
+    /**
+     * Stops the shards. Commands that were not run yet are dropped.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Shard shard : shards) {
+            shard.interrupt();
+        }
+    }
+
+    /**
+     * Writes the results of the finished commands at the head of the queue, waiting for
+     * the first one if asked to.
+     */
+    private void flush(final boolean waitForHead) {
+        boolean wait = waitForHead;
+        while (!pending.isEmpty()) {
+            Task head = pending.peekFirst();
+            if (!wait && !head.done.isDone()) {
+                return;
+            }
+            wait = false;
+
+            join(head);
+            pending.removeFirst();
+            head.buffer.drainTo(output);
+        }
+    }
+
+    /**
+     * Waits for a command, rethrowing its failure like the serial run would.
+     */
+    private static void join(final Task task) {
+        try {
+            task.done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the set of shards a command touches, as a bit mask.
+     */
+    private long footprint(final CommandInput command) {
+        long footprint = 0;
+        switch (command.getType()) {
+            case PRINT_USERS, PRINT_USERS_DELTA -> {
+                return allShards;
+            }
+            case ADD_ACCOUNT -> {
+                footprint |= emailShard(command.getEmail());
+                footprint |= bit(IBAN_GENERATOR_SHARD);
+            }
+            case CREATE_CARD, CREATE_ONE_TIME_CARD -> {
+                footprint |= emailShard(command.getEmail());
+                footprint |= accountShard(command.getAccount());
+                footprint |= bit(CARD_GENERATOR_SHARD);
+            }
+            case PAY_ONLINE -> {
+                footprint |= emailShard(command.getEmail());
+                footprint |= cardShard(command.getCardNumber(), true);
+            }
+            case DELETE_CARD, CHECK_CARD_STATUS ->
+                    footprint |= cardShard(command.getCardNumber(), false);
+            case SEND_MONEY -> {
+                footprint |= accountShard(command.getAccount());
+                footprint |= accountShard(command.getReceiver());
+            }
+            case SPLIT_PAYMENT -> {
+                if (command.getAccounts() == null) {
+                    return allShards;
+                }
+                for (String iban : command.getAccounts()) {
+                    footprint |= accountShard(iban);
+                }
+            }
+            case DELETE_ACCOUNT, SET_ALIAS -> {
+                footprint |= emailShard(command.getEmail());
+                footprint |= accountShard(command.getAccount());
+            }
+            case ADD_FUNDS, SET_MINIMUM_BALANCE, REPORT, SPENDINGS_REPORT, ADD_INTEREST,
+                 CHANGE_INTEREST_RATE ->
+                    footprint |= accountShard(command.getAccount());
+            case PRINT_TRANSACTIONS -> footprint |= emailShard(command.getEmail());
+            default -> {
+            }
+        }
+        if (footprint == 0) {
+            // Commands without any key still run somewhere, to keep their place in the output
+            return bit(0);
+        }
+        return footprint & allShards;
+    }
+
+    private long emailShard(final String email) {
+        if (email == null) {
+            return 0;
+        }
+        return bit(shardOf(email));
+    }
+
+    /**
+     * Returns the shard owning an account, or every shard if the IBAN is not known.
+     */
+    private long accountShard(final String iban) {
+        if (iban == null) {
+            return 0;
+        }
+        User owner = registry.findUserByAccount(iban);
+        if (owner == null && lastIbanProducer != null) {
+            // The account may be created by a command that did not run yet
+            awaitProducer(lastIbanProducer);
+            owner = registry.findUserByAccount(iban);
+        }
+        if (owner == null) {
+            return allShards;
+        }
+        return bit(shardOf(owner.getEmail()));
+    }
+
+    /**
+     * Returns the shard owning a card, or every shard if the card is not known.
+     * A payment with a one-time card replaces the card, so it also needs the shard
+     * owning the card-number generator.
+     */
+    private long cardShard(final String cardNumber, final boolean payment) {
+        if (cardNumber == null) {
+            return 0;
+        }
+        CardEntry entry = registry.findCard(cardNumber);
+        if (entry == null && lastCardProducer != null) {
+            // The card may be created by a command that did not run yet
+            awaitProducer(lastCardProducer);
+            entry = registry.findCard(cardNumber);
+        }
+        if (entry == null || entry.getOwner() == null) {
+            return allShards;
+        }
+
+        long footprint = bit(shardOf(entry.getOwner().getEmail()));
+        if (payment && entry.getCard().isOneTimeCard()) {
+            footprint |= bit(CARD_GENERATOR_SHARD);
+        }
+        return footprint;
+    }
+
+    private void awaitProducer(final Task producer) {
+        try {
+            producer.done.join();
+        } catch (CompletionException e) {
+            // The failure is reported when the producer's results are written
+        }
+        flush(false);
+    }
+
+    private int shardOf(final String email) {
+        return Math.floorMod(email.hashCode(), shardCount);
+    }
+
+    private long bit(final int shard) {
+        return 1L << (shard % shardCount);
+    }
+
+    /**
+     * A queued command, shared by every shard it touches.
+     */
+    private final class Task {
+        private final CommandInput command;
+        private final BufferedOutputSink buffer = new BufferedOutputSink();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicInteger arrivals;
+
+        Task(final CommandInput command, final int shardsTouched) {
+            this.command = command;
+            this.arrivals = new AtomicInteger(shardsTouched);
+        }
+
+        /**
+         * Called by every shard reaching the command. The last one runs it, while the
+         * others wait for it to finish.
+         */
+        void arrive() throws InterruptedException {
+            if (arrivals.decrementAndGet() > 0) {
+                try {
+                    done.get();
+                } catch (ExecutionException e) {
+                    // The failure is reported when the results are written
+                }
+                return;
+            }
+            try {
+                bankSystem.runCommand(command, buffer);
+                done.complete(null);
+            } catch (RuntimeException | Error e) {
+                done.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Worker thread running the commands queued on one shard, in order.
+     */
+    private final class Shard extends Thread {
+        private final BlockingQueue<Task> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        Shard(final int index) {
+            super("bank-shard-" + index);
+            setDaemon(true);
+        }
+
+        void enqueue(final Task task) {
+            try {
+                queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing a command", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    queue.take().arrive();
+                }
+            } catch (InterruptedException e) {
+                // The engine was closed
+            }
+        }
+    }
+}
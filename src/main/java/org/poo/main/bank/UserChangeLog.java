@@ -0,0 +1,39 @@
+package org.poo.main.bank;
+
+import org.poo.main.user.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The users changed since the last printUsers or printUsersDelta, owned by the BankSystem.
+ * A user is logged on its first change after a print, so taking the changes costs as
+ * much as the changes do, whatever the size of the bank. The methods are synchronized,
+ * since the shards of a ShardedBankEngine change their users at the same time.
+ */
+public final class UserChangeLog {
+    private List<User> users = new ArrayList<>();
+
+    /**
+     * Logs a user that changed for the first time since the last print.
+     *
+     * @param user the user
+     */
+    public synchronized void add(final User user) {
+        users.add(user);
+    }
+
+    /**
+     * Takes the logged users and starts a new log. The users are sorted by their position
+     * in the bank, since the shards log them in no fixed order.
+     *
+     * @return the changed users, in the order printUsers lists them
+     */
+    public synchronized List<User> drain() {
+        List<User> changed = users;
+        users = new ArrayList<>();
+        changed.sort(Comparator.comparingInt(User::getPosition));
+        return changed;
+    }
+}
@@ -72,5 +72,8 @@ public class Card {
      */
     public void freezeCard() {
         this.status = STATUS_INACTIVE;
+        if (account != null) {
+            account.markChanged();
+        }
     }
 }
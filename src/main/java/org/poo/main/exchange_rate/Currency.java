@@ -0,0 +1,53 @@
+package org.poo.main.exchange_rate;
+
+/**
+ * A currency interned by the CurrencyTable.
+ * Each currency gets a small integer id, so currencies are compared by id
+ * and used as indexes into the exchange-rate matrix. It also carries the scale of its
+ * minor units.
+ */
+public final class Currency {
+    private final int id;
+    private final String code;
+    private final int scale;
+    private final long unitsPerMajor;
+
+    Currency(final int id, final String code, final int scale) {
+        this.id = id;
+        this.code = code;
+        this.scale = scale;
+
+        long units = 1;
+        for (int i = 0; i < scale; i++) {
+            units *= Money.RADIX;
+        }
+        this.unitsPerMajor = units;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return The number of decimals kept by the minor units of the currency.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * @return The number of minor units in one unit of the currency.
+     */
+    public long getUnitsPerMajor() {
+        return unitsPerMajor;
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
@@ -0,0 +1,99 @@
+package org.poo.main.exchange_rate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Symbol table assigning small integer ids to currency codes.
+ * Ids are handed out in the order the codes are first seen, starting at 0.
+ * Lookups are lock-free and new codes are added under a lock, so the table can be
+ * shared by concurrent shards.
+ *
+ * Every currency gets the scale of its ISO 4217 minor units when it is interned: two
+ * decimals, except for the currencies listed with no minor units or with three.
+ */
+public final class CurrencyTable {
+    public static final int DEFAULT_SCALE = 2;
+    private static final int MAX_SCALE = 9;
+    private static final Map<String, Integer> MINOR_UNITS = Map.ofEntries(
+            Map.entry("CLP", 0), Map.entry("ISK", 0), Map.entry("JPY", 0),
+            Map.entry("KRW", 0), Map.entry("VND", 0),
+            Map.entry("BHD", 3), Map.entry("IQD", 3), Map.entry("JOD", 3),
+            Map.entry("KWD", 3), Map.entry("LYD", 3), Map.entry("OMR", 3),
+            Map.entry("TND", 3));
+
+    private final Map<String, Currency> byCode = new ConcurrentHashMap<>();
+    private final List<Currency> byId = new CopyOnWriteArrayList<>();
+
+    /**
+     * Returns the currency for a code, assigning it a new id if it was not seen before.
+     *
+     * @param code the currency code
+     * @return the interned currency, or null if the code is null
+     */
+    public Currency intern(final String code) {
+        if (code == null) {
+            return null;
+        }
+        Currency currency = byCode.get(code);
+        if (currency != null) {
+            return currency;
+        }
+        return add(code, MINOR_UNITS.getOrDefault(code, DEFAULT_SCALE));
+    }
+
+    /**
+     * Interns a currency with its own scale. Must be called before the code is first
+     * used, since amounts already kept in minor units cannot be rescaled.
+     *
+     * @param code  the currency code
+     * @param scale the number of decimals kept by the minor units, between 0 and 9
+     * @return the interned currency
+     * @throws IllegalArgumentException if the scale is out of range
+     * @throws IllegalStateException    if the code was already interned with another scale
+     */
+    public Currency define(final String code, final int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("The scale must be between 0 and " + MAX_SCALE);
+        }
+        Currency currency = add(code, scale);
+        if (currency.getScale() != scale) {
+            throw new IllegalStateException("The currency " + code
+                    + " is already used with another scale");
+        }
+        return currency;
+    }
+
+    private Currency add(final String code, final int scale) {
+        synchronized (byId) {
+            Currency currency = byCode.get(code);
+            if (currency == null) {
+                currency = new Currency(byId.size(), code, scale);
+                byId.add(currency);
+                byCode.put(code, currency);
+            }
+            return currency;
+        }
+    }
+
+    /**
+     * Returns the currency with the given id.
+     *
+     * @param id the currency id
+     * @return the currency
+     */
+    public Currency get(final int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Returns the number of interned currencies.
+     *
+     * @return the number of currencies
+     */
+    public int size() {
+        return byId.size();
+    }
+}
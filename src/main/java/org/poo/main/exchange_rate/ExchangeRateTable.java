@@ -0,0 +1,103 @@
+package org.poo.main.exchange_rate;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Exchange-rate table built once from the loaded rates.
+ * The rates between all pairs are stored in a dense matrix indexed by currency id, so a
+ * conversion is a single array read and unreachable pairs hold 0. Every row is filled by
+ * a breadth-first search from its currency over the same graph, visited in the same
+ * order, as the search the bank used to run for every conversion. The loaded rates do not
+ * have to agree with each other, so the path a search takes decides the rate, and the
+ * table keeps the rate the bank has always used for each pair.
+ */
+public final class ExchangeRateTable {
+    private final int size;
+    private final double[] rates; // rates[from * size + to]
+
+    private ExchangeRateTable(final int size, final double[] rates) {
+        this.size = size;
+        this.rates = rates;
+    }
+
+    /**
+     * Builds the table from the list of exchange rates.
+     *
+     * @param exchangeRates the loaded exchange rates
+     * @param currencies    the table interning the currencies of the rates
+     * @return the exchange-rate table
+     */
+    public static ExchangeRateTable of(final List<ExchangeRate> exchangeRates,
+                                       final CurrencyTable currencies) {
+        int size = currencies.size();
+        Map<String, Map<String, Double>> graph = buildGraph(exchangeRates);
+
+        double[] rates = new double[size * size];
+        boolean[] visited = new boolean[size];
+        Queue<String> queue = new ArrayDeque<>();
+
+        for (String start : graph.keySet()) {
+            int from = currencies.intern(start).getId();
+            int row = from * size;
+            Arrays.fill(visited, false);
+
+            // The rate of every reached currency is the product along the search tree
+            visited[from] = true;
+            rates[row + from] = 1.0;
+            queue.offer(start);
+            while (!queue.isEmpty()) {
+                String current = queue.poll();
+                double product = rates[row + currencies.intern(current).getId()];
+
+                for (Map.Entry<String, Double> neighbor : graph.get(current).entrySet()) {
+                    int next = currencies.intern(neighbor.getKey()).getId();
+                    if (!visited[next]) {
+                        visited[next] = true;
+                        rates[row + next] = product * neighbor.getValue();
+                        queue.offer(neighbor.getKey());
+                    }
+                }
+            }
+        }
+
+        return new ExchangeRateTable(size, rates);
+    }
+
+    /**
+     * Returns the exchange rate between two currencies.
+     *
+     * @param from the source currency
+     * @param to   the target currency
+     * @return the rate, or 0 if there is no way to convert between the currencies
+     */
+    public double getRate(final Currency from, final Currency to) {
+        if (from == null || to == null || from.getId() >= size || to.getId() >= size) {
+            return 0;
+        }
+        return rates[from.getId() * size + to.getId()];
+    }
+
+    /**
+     * Builds the graph of the direct rates, keyed by currency code. Its maps are filled in
+     * input order, so they are iterated in the same order as the bank's original graph.
+     */
+    private static Map<String, Map<String, Double>> buildGraph(
+            final List<ExchangeRate> exchangeRates) {
+        Map<String, Map<String, Double>> graph = new HashMap<>();
+        for (ExchangeRate rate : exchangeRates) {
+            String from = rate.getFrom().getCode();
+            String to = rate.getTo().getCode();
+            graph.putIfAbsent(from, new HashMap<>());
+            graph.putIfAbsent(to, new HashMap<>());
+
+            graph.get(from).put(to, rate.getRate());
+            graph.get(to).put(from, 1.0 / rate.getRate());
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,87 @@
+package org.poo.main.exchange_rate;
+
+/**
+ * Arithmetic on amounts of money kept as long counts of a currency's minor units.
+ * Balances, transaction amounts and report totals are stored this way, so they are
+ * never boxed and sums are exact. Floating point is only used at the edges: when an
+ * amount is read from a command, when it is converted or multiplied by a rate, and when
+ * it is written to the output. Every such step rounds half-even to whole minor units.
+ */
+public final class Money {
+    /**
+     * The base of the minor units.
+     */
+    public static final int RADIX = 10;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount to minor units of a currency.
+     *
+     * @param amount   the amount, in units of the currency
+     * @param currency the currency
+     * @return the amount in minor units
+     */
+    public static long toUnits(final double amount, final Currency currency) {
+        return round(amount * currency.getUnitsPerMajor());
+    }
+
+    /**
+     * Converts minor units of a currency back to an amount.
+     *
+     * @param units    the amount in minor units
+     * @param currency the currency
+     * @return the amount, in units of the currency
+     */
+    public static double toAmount(final long units, final Currency currency) {
+        return units / (double) currency.getUnitsPerMajor();
+    }
+
+    /**
+     * Converts an amount between two currencies.
+     *
+     * @param units the amount in minor units of the source currency
+     * @param from  the source currency
+     * @param to    the target currency
+     * @param rate  the exchange rate from the source to the target currency
+     * @return the amount in minor units of the target currency
+     */
+    public static long convert(final long units, final Currency from, final Currency to,
+                               final double rate) {
+        double factor = rate;
+        if (from.getScale() != to.getScale()) {
+            factor = rate * to.getUnitsPerMajor() / from.getUnitsPerMajor();
+        }
+        return round(units * factor);
+    }
+
+    /**
+     * Multiplies an amount by a factor, like an interest rate.
+     *
+     * @param units  the amount in minor units
+     * @param factor the factor
+     * @return the product in minor units
+     */
+    public static long multiply(final long units, final double factor) {
+        return round(units * factor);
+    }
+
+    /**
+     * Divides an amount into equal parts.
+     *
+     * @param units the amount in minor units
+     * @param parts the number of parts
+     * @return the amount of one part in minor units
+     */
+    public static long divide(final long units, final int parts) {
+        return round(units / (double) parts);
+    }
+
+    /**
+     * Rounds a number of minor units half-even to an integer.
+     */
+    private static long round(final double units) {
+        return (long) Math.rint(units);
+    }
+}
@@ -0,0 +1,43 @@
+package org.poo.main.io;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Output sink collecting the command results into an in-memory ArrayNode.
+ */
+public final class ArrayNodeSink implements OutputSink {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ArrayNode output;
+
+    public ArrayNodeSink(final ArrayNode output) {
+        this.output = output;
+    }
+
+    @Override
+    public void write(final JsonNode result) {
+        output.add(result);
+    }
+
+    @Override
+    public void write(final ResultWriter writer) {
+        // Replay the streamed tokens into a tree, since this sink keeps everything in memory
+        try (TokenBuffer buffer = new TokenBuffer(OBJECT_MAPPER, false)) {
+            writer.writeTo(buffer);
+            JsonNode result = OBJECT_MAPPER.readTree(buffer.asParser(OBJECT_MAPPER));
+            output.add(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
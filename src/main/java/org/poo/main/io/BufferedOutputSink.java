@@ -0,0 +1,57 @@
+package org.poo.main.io;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output sink holding the results of a single command until they can be written in order.
+ * Streamed results are recorded as tokens right away, so they capture the state of the
+ * bank at the time the command ran and not at the time they are written.
+ */
+public final class BufferedOutputSink implements OutputSink {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final List<Object> results = new ArrayList<>(1);
+
+    @Override
+    public void write(final JsonNode result) {
+        results.add(result);
+    }
+
+    @Override
+    public void write(final ResultWriter writer) {
+        TokenBuffer buffer = new TokenBuffer(OBJECT_MAPPER, false);
+        try {
+            writer.writeTo(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        results.add(buffer);
+    }
+
+    /**
+     * Writes the buffered results to another sink, in the order they were produced.
+     *
+     * @param output the sink to write to
+     */
+    public void drainTo(final OutputSink output) {
+        for (Object result : results) {
+            if (result instanceof TokenBuffer buffer) {
+                output.write(buffer::serialize);
+            } else {
+                output.write((JsonNode) result);
+            }
+        }
+        results.clear();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,20 @@
+package org.poo.main.io;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Output sink dropping every result, for runs that only rebuild the state of a bank.
+ */
+public final class DiscardingOutputSink implements OutputSink {
+    @Override
+    public void write(final JsonNode result) {
+    }
+
+    @Override
+    public void write(final ResultWriter writer) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,62 @@
+package org.poo.main.io;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Output sink streaming every command result to a file as soon as it is produced.
+ * The results are written as the elements of one pretty-printed JSON array, with the
+ * same layout the ObjectWriter produced for the whole array at the end of a run.
+ */
+public final class JsonGeneratorSink implements OutputSink {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final JsonGenerator generator;
+
+    public JsonGeneratorSink(final JsonGenerator generator) throws IOException {
+        this.generator = generator;
+        generator.writeStartArray();
+    }
+
+    /**
+     * Opens a sink writing to the given file.
+     *
+     * @param file the output file
+     * @return the sink
+     * @throws IOException in case of exceptions to writing
+     */
+    public static JsonGeneratorSink open(final File file) throws IOException {
+        return new JsonGeneratorSink(OBJECT_MAPPER.writerWithDefaultPrettyPrinter()
+                .createGenerator(file, JsonEncoding.UTF8));
+    }
+
+    @Override
+    public void write(final JsonNode result) {
+        try {
+            generator.writeTree(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(final ResultWriter writer) {
+        try {
+            writer.writeTo(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+}
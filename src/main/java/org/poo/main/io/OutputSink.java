@@ -0,0 +1,27 @@
+package org.poo.main.io;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+
+/**
+ * Destination of the command results produced by the BankSystem.
+ * Small results are handed over as nodes, while large ones are streamed through a
+ * ResultWriter, so they never have to be built as a tree first.
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * Writes a complete command result.
+     *
+     * @param result the result node
+     */
+    void write(JsonNode result);
+
+    /**
+     * Writes a command result by letting the writer stream it token by token.
+     *
+     * @param writer the writer producing the result
+     */
+    void write(ResultWriter writer);
+}
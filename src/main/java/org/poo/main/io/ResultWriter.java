@@ -0,0 +1,20 @@
+package org.poo.main.io;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Streams one command result into a JSON generator.
+ */
+@FunctionalInterface
+public interface ResultWriter {
+
+    /**
+     * Writes the result as a single JSON value.
+     *
+     * @param generator the generator to write to
+     * @throws IOException in case of exceptions to writing
+     */
+    void writeTo(JsonGenerator generator) throws IOException;
+}
@@ -0,0 +1,157 @@
+package org.poo.main.io;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.UserInput;
+import org.poo.main.bank.BankSystem;
+import org.poo.main.bank.CommandProcessor;
+import org.poo.main.exchange_rate.CurrencyTable;
+import org.poo.main.exchange_rate.ExchangeRate;
+import org.poo.main.user.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams an input file into a BankSystem with Jackson's JsonParser.
+ * The users and exchange rates are loaded first, then every command is handed to the
+ * bank as soon as it is parsed, so memory stays bounded by a single command and
+ * processing overlaps with parsing instead of waiting for the whole document.
+ *
+ * Streaming needs the commands section to come after the users and the exchange rates.
+ * If it comes first, the commands cannot run yet, so the whole list is read into memory
+ * and run once the other sections are loaded, and a warning is printed to stderr.
+ */
+public final class StreamingInputLoader {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectReader USER_READER = OBJECT_MAPPER.readerFor(UserInput.class);
+    private static final ObjectReader EXCHANGE_READER =
+            OBJECT_MAPPER.readerFor(ExchangeInput.class);
+    private static final ObjectReader COMMAND_READER =
+            OBJECT_MAPPER.readerFor(CommandInput.class);
+
+    private final BankSystem bankSystem;
+    private final CommandProcessor processor;
+    private boolean usersLoaded;
+    private boolean exchangeRatesLoaded;
+
+    private StreamingInputLoader(final BankSystem bankSystem,
+                                 final CommandProcessor processor) {
+        this.bankSystem = bankSystem;
+        this.processor = processor;
+    }
+
+    /**
+     * Loads an input file into the bank system and processes its commands.
+     *
+     * @param file       the input file
+     * @param bankSystem the bank system to load the input into
+     * @param output     the sink receiving the command results
+     * @throws IOException in case of exceptions to reading
+     */
+    public static void load(final File file, final BankSystem bankSystem,
+                            final OutputSink output) throws IOException {
+        load(file, bankSystem, bankSystem.serialProcessor(output));
+    }
+
+    /**
+     * Loads an input file into the bank system and hands its commands to a processor.
+     *
+     * @param file       the input file
+     * @param bankSystem the bank system to load the users and exchange rates into
+     * @param processor  the processor running the commands on the bank system
+     * @throws IOException in case of exceptions to reading
+     */
+    public static void load(final File file, final BankSystem bankSystem,
+                            final CommandProcessor processor) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(file)) {
+            new StreamingInputLoader(bankSystem, processor).read(parser);
+        }
+    }
+
+    private void read(final JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("The input must be a JSON object");
+        }
+
+        List<CommandInput> pendingCommands = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+
+            if (token != JsonToken.START_ARRAY) {
+                // Missing sections and unknown values are skipped
+                parser.skipChildren();
+                continue;
+            }
+
+            switch (field) {
+                case "users" -> readUsers(parser);
+                case "exchangeRates" -> readExchangeRates(parser);
+                case "commands" -> {
+                    if (usersLoaded && exchangeRatesLoaded) {
+                        streamCommands(parser);
+                    } else {
+                        // Commands only run once the bank is set up, so keep them until then
+                        System.err.println("Warning: the commands come before the users or"
+                                + " the exchange rates, so they are read into memory");
+                        pendingCommands = bufferCommands(parser);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (pendingCommands != null) {
+            for (CommandInput command : pendingCommands) {
+                processor.processCommand(command);
+            }
+        }
+        processor.finishProcessing();
+    }
+
+    private void readUsers(final JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            UserInput userInput = USER_READER.readValue(parser);
+            bankSystem.addUser(new User(
+                    userInput.getFirstName(),
+                    userInput.getLastName(),
+                    userInput.getEmail()));
+        }
+        usersLoaded = true;
+    }
+
+    private void readExchangeRates(final JsonParser parser) throws IOException {
+        CurrencyTable currencies = bankSystem.getCurrencies();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            ExchangeInput exchangeInput = EXCHANGE_READER.readValue(parser);
+            bankSystem.addExchangeRate(new ExchangeRate(
+                    currencies.intern(exchangeInput.getFrom()),
+                    currencies.intern(exchangeInput.getTo()),
+                    exchangeInput.getRate()));
+        }
+        exchangeRatesLoaded = true;
+    }
+
+    private void streamCommands(final JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            CommandInput command = COMMAND_READER.readValue(parser);
+            processor.processCommand(command);
+        }
+    }
+
+    private List<CommandInput> bufferCommands(final JsonParser parser) throws IOException {
+        List<CommandInput> commands = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            commands.add(COMMAND_READER.readValue(parser));
+        }
+        return commands;
+    }
+}
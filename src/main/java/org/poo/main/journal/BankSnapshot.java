@@ -0,0 +1,281 @@
+package org.poo.main.journal;
+
+import org.poo.main.accounts.Account;
+import org.poo.main.accounts.ClassicAccount;
+import org.poo.main.accounts.SavingsAccount;
+import org.poo.main.bank.BankSystem;
+import org.poo.main.cards.Card;
+import org.poo.main.cards.OneTimeCard;
+import org.poo.main.exchange_rate.Currency;
+import org.poo.main.exchange_rate.CurrencyTable;
+import org.poo.main.exchange_rate.ExchangeRate;
+import org.poo.main.transactions.TransactionStore;
+import org.poo.main.user.User;
+import org.poo.utils.IdGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact binary snapshot of the whole state of a bank, so a restart loads it instead
+ * of replaying the bank's history.
+ *
+ * The snapshot holds the currencies with their ids, the exchange rates, the states of
+ * the IBAN and card-number generators, the users with their accounts and cards, and
+ * the transaction store of every user, whose columns are written and read in bulk. It
+ * ends with the CRC32C of its content. It is written to a temporary file that then
+ * replaces the snapshot, so a crash never leaves a half-written one behind, and it is
+ * read through a read-only mapping of the file. A journal opened after the snapshot
+ * was taken can be replayed on top of the restored bank.
+ */
+public final class BankSnapshot {
+    private static final int MAGIC = 0x424B5331; // "BKS1"
+    private static final int VERSION = 4;
+    private static final int MIN_SIZE = Integer.BYTES * 3;
+
+    private static final byte NO_ACCOUNT = 0;
+    private static final byte CLASSIC = 1;
+    private static final byte SAVINGS = 2;
+
+    private static final byte ONE_TIME = 0x01;
+    private static final byte USED = 0x02;
+    private static final byte FROZEN = 0x04;
+
+    private BankSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of a bank, replacing the file once it is complete.
+     *
+     * @param bankSystem the bank, which must not be running commands meanwhile
+     * @param file       the snapshot file
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void write(final BankSystem bankSystem, final File file) throws IOException {
+        Path target = file.toPath();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            try (SnapshotOutput output = new SnapshotOutput(channel)) {
+                output.putInt(MAGIC);
+                output.putInt(VERSION);
+                writeBank(bankSystem, output);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores a bank from a snapshot.
+     *
+     * @param file the snapshot file
+     * @return a new bank, in the state it had when the snapshot was written
+     * @throws IOException in case of exceptions to reading, or if the file is not a
+     *                     valid snapshot
+     */
+    public static BankSystem read(final File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MIN_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a bank snapshot");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        int contentSize = buffer.capacity() - Integer.BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, contentSize));
+        if ((int) crc.getValue() != buffer.getInt(contentSize)) {
+            throw new IOException("The snapshot is damaged");
+        }
+
+        ByteBuffer content = buffer.slice(0, contentSize);
+        SnapshotInput input = new SnapshotInput(content);
+        if (input.getInt() != MAGIC || input.getInt() != VERSION) {
+            throw new IOException("Not a bank snapshot");
+        }
+        BankSystem bankSystem = new BankSystem();
+        readBank(input, bankSystem);
+        return bankSystem;
+    }
+
+    private static void writeBank(final BankSystem bankSystem, final SnapshotOutput output) {
+        CurrencyTable currencies = bankSystem.getCurrencies();
+        output.putInt(currencies.size());
+        for (int id = 0; id < currencies.size(); id++) {
+            Currency currency = currencies.get(id);
+            output.putString(currency.getCode());
+            output.putByte((byte) currency.getScale());
+        }
+
+        List<ExchangeRate> exchangeRates = bankSystem.getExchangeRates();
+        output.putInt(exchangeRates.size());
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            output.putInt(exchangeRate.getFrom().getId());
+            output.putInt(exchangeRate.getTo().getId());
+            output.putDouble(exchangeRate.getRate());
+        }
+
+        IdGenerator idGenerator = bankSystem.getIdGenerator();
+        output.putLong(idGenerator.getIbanState());
+        output.putLong(idGenerator.getCardState());
+
+        // Every user comes first, so cards can refer to their owners by position
+        List<User> users = bankSystem.getUsers();
+        Map<User, Integer> positions = new IdentityHashMap<>();
+        output.putInt(users.size());
+        for (User user : users) {
+            positions.put(user, positions.size());
+            output.putString(user.getFirstName());
+            output.putString(user.getLastName());
+            output.putString(user.getEmail());
+        }
+        for (User user : users) {
+            output.putInt(user.getAccounts().size());
+            for (Account account : user.getAccounts()) {
+                writeAccount(account, positions, output);
+            }
+        }
+        for (User user : users) {
+            user.getTransactionStore().writeTo(output);
+        }
+    }
+
+    private static void writeAccount(final Account account, final Map<User, Integer> positions,
+                                     final SnapshotOutput output) {
+        if (account == null) {
+            output.putByte(NO_ACCOUNT);
+            return;
+        }
+        output.putByte(account.isSavingsAccount() ? SAVINGS : CLASSIC);
+        output.putString(account.getIban());
+        output.putInt(account.getCurrencyId());
+        output.putString(account.getOwnerEmail());
+        output.putString(account.getAlias());
+        output.putLong(account.getBalance());
+        output.putLong(account.getMinBalance());
+        if (account.isSavingsAccount()) {
+            output.putDouble(((SavingsAccount) account).getInterestRate());
+        }
+
+        output.putInt(account.getCards().size());
+        for (Card card : account.getCards()) {
+            byte flags = 0;
+            if (card.isOneTimeCard()) {
+                flags |= ONE_TIME;
+                if (((OneTimeCard) card).isUsed()) {
+                    flags |= USED;
+                }
+            }
+            if (Card.STATUS_INACTIVE.equals(card.getStatus())) {
+                flags |= FROZEN;
+            }
+            output.putString(card.getCardNumber());
+            output.putByte(flags);
+            output.putInt(positions.getOrDefault(card.getCardOwner(), -1));
+        }
+    }
+
+    private static void readBank(final SnapshotInput input, final BankSystem bankSystem) {
+        CurrencyTable currencies = bankSystem.getCurrencies();
+        int currencyCount = input.getInt();
+        for (int id = 0; id < currencyCount; id++) {
+            String code = input.getString();
+            currencies.define(code, input.getByte());
+        }
+
+        int rateCount = input.getInt();
+        for (int i = 0; i < rateCount; i++) {
+            Currency from = currencies.get(input.getInt());
+            Currency to = currencies.get(input.getInt());
+            bankSystem.addExchangeRate(new ExchangeRate(from, to, input.getDouble()));
+        }
+
+        long ibanState = input.getLong();
+        long cardState = input.getLong();
+        bankSystem.getIdGenerator().restore(ibanState, cardState);
+
+        int userCount = input.getInt();
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new User(input.getString(), input.getString(), input.getString()));
+        }
+        for (User user : users) {
+            int accountCount = input.getInt();
+            for (int i = 0; i < accountCount; i++) {
+                user.addAccount(readAccount(input, user, users, currencies));
+            }
+        }
+
+        // Registering the users indexes their accounts and cards as well
+        for (User user : users) {
+            bankSystem.addUser(user);
+        }
+        for (User user : users) {
+            user.restoreTransactions(TransactionStore.readFrom(input, currencies));
+        }
+    }
+
+    private static Account readAccount(final SnapshotInput input, final User owner,
+                                       final List<User> users, final CurrencyTable currencies) {
+        byte kind = input.getByte();
+        if (kind == NO_ACCOUNT) {
+            return null;
+        }
+        String iban = input.getString();
+        Currency currency = currencies.get(input.getInt());
+        String ownerEmail = input.getString();
+        String alias = input.getString();
+        long balance = input.getLong();
+        long minBalance = input.getLong();
+
+        Account account;
+        if (kind == SAVINGS) {
+            account = new SavingsAccount(currency, ownerEmail, input.getDouble(), iban);
+        } else {
+            account = new ClassicAccount(currency, ownerEmail, iban);
+        }
+        account.setAlias(alias);
+        account.deposit(balance);
+        account.setMinBalance(minBalance);
+
+        int cardCount = input.getInt();
+        for (int i = 0; i < cardCount; i++) {
+            String cardNumber = input.getString();
+            byte flags = input.getByte();
+            int position = input.getInt();
+            User cardOwner = position < 0 ? owner : users.get(position);
+
+            Card card;
+            if ((flags & ONE_TIME) != 0) {
+                OneTimeCard oneTimeCard = new OneTimeCard(cardOwner, account, cardNumber);
+                if ((flags & USED) != 0) {
+                    oneTimeCard.markAsUsed();
+                }
+                card = oneTimeCard;
+            } else {
+                card = new Card(cardOwner, account, cardNumber);
+            }
+            if ((flags & FROZEN) != 0) {
+                card.freezeCard();
+            }
+            account.addCard(card);
+        }
+        return account;
+    }
+}
@@ -0,0 +1,320 @@
+package org.poo.main.journal;
+
+import org.poo.fileio.CommandInput;
+import org.poo.main.bank.BankSystem;
+import org.poo.main.exchange_rate.CurrencyTable;
+import org.poo.main.exchange_rate.ExchangeRate;
+import org.poo.main.io.DiscardingOutputSink;
+import org.poo.main.io.OutputSink;
+import org.poo.main.user.User;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead journal of everything needed to rebuild a bank: the loaded users and
+ * exchange rates, every command that may change the bank, and the end of every run.
+ *
+ * Records are appended to a memory-mapped region of the file, each one as its length,
+ * the CRC32C of its payload and the payload, so appending is a few memory stores and no
+ * system call. Written records survive a crash of the process as soon as they are
+ * appended. They are forced to the disk once per group of records, on commit and on
+ * close, so a crash of the machine loses at most the last group. A torn or corrupted
+ * tail is detected by its length or checksum, and reading stops there.
+ */
+public final class CommandJournal implements Closeable {
+    /** The number of records forced to the disk together, by default. */
+    public static final int DEFAULT_GROUP_SIZE = 1024;
+
+    private static final int MAGIC = 0x424B4A31; // "BKJ1"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER = Integer.BYTES * 2;
+    private static final int RECORD_HEADER = Integer.BYTES * 2;
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int READ_BUFFER = 65_536;
+
+    private final FileChannel channel;
+    private final int groupSize;
+    private final JournalCodec codec = new JournalCodec();
+    private final CRC32C crc = new CRC32C();
+
+    private MappedByteBuffer segment;
+    private long segmentStart; // Offset of the mapped segment in the file
+    private int forcedPosition; // Bytes of the segment already forced to the disk
+    private int unforcedRecords;
+    private boolean closed;
+
+    private CommandJournal(final FileChannel channel, final long end, final int groupSize)
+            throws IOException {
+        this.channel = channel;
+        this.groupSize = groupSize;
+        mapSegment(end, SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens a journal, appending after the last valid record of an existing file.
+     *
+     * @param file      the journal file
+     * @param groupSize the number of records forced to the disk together
+     * @return the journal
+     * @throws IOException in case of exceptions to reading / writing, or if the file is
+     *                     not a journal
+     */
+    public static CommandJournal open(final File file, final int groupSize)
+            throws IOException {
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("The group size must be positive");
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end;
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.write(header, 0);
+                end = FILE_HEADER;
+            } else {
+                end = read(channel, null);
+                // Drop the torn tail and the unused end of the last mapping
+                channel.truncate(end);
+            }
+            return new CommandJournal(channel, end, groupSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a user loaded from the input.
+     *
+     * @param user the user
+     */
+    public synchronized void appendUser(final User user) {
+        append(codec.encodeUser(user.getFirstName(), user.getLastName(), user.getEmail()));
+    }
+
+    /**
+     * Appends an exchange rate loaded from the input.
+     *
+     * @param exchangeRate the exchange rate
+     */
+    public synchronized void appendExchangeRate(final ExchangeRate exchangeRate) {
+        append(codec.encodeExchangeRate(exchangeRate.getFrom().getCode(),
+                exchangeRate.getTo().getCode(), exchangeRate.getRate()));
+    }
+
+    /**
+     * Appends a command, before it runs.
+     *
+     * @param command the command
+     */
+    public synchronized void appendCommand(final CommandInput command) {
+        append(codec.encodeCommand(command));
+    }
+
+    /**
+     * Appends the end of a run and commits the journal.
+     */
+    public synchronized void appendFinish() {
+        append(codec.encodeFinish());
+        commit();
+    }
+
+    /**
+     * Forces every appended record to the disk.
+     */
+    public synchronized void commit() {
+        int position = segment.position();
+        if (position > forcedPosition) {
+            segment.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+        }
+        unforcedRecords = 0;
+    }
+
+    /**
+     * Commits the journal, trims the file to the end of its last record and closes it.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        commit();
+        long end = segmentStart + segment.position();
+        try {
+            // Drop the unused end of the mapped segment
+            channel.truncate(end);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Rebuilds a bank from a journal.
+     *
+     * @param file the journal file
+     * @return the bank, in the state it had after the last valid record
+     * @throws IOException in case of exceptions to reading, or if the file is not a
+     *                     journal
+     */
+    public static BankSystem replay(final File file) throws IOException {
+        BankSystem bankSystem = new BankSystem();
+        replay(file, bankSystem);
+        return bankSystem;
+    }
+
+    /**
+     * Replays a journal into a bank, discarding the command results. The bank must not
+     * have a journal attached, or the replayed records would be appended again.
+     *
+     * @param file       the journal file
+     * @param bankSystem the bank to replay the records into
+     * @return the number of records replayed
+     * @throws IOException in case of exceptions to reading, or if the file is not a
+     *                     journal
+     */
+    public static long replay(final File file, final BankSystem bankSystem)
+            throws IOException {
+        Replayer replayer = new Replayer(bankSystem);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            read(channel, replayer);
+        }
+        return replayer.records;
+    }
+
+    private void append(final ByteBuffer payload) {
+        if (closed) {
+            throw new IllegalStateException("The journal is closed");
+        }
+        int length = payload.remaining();
+        if (segment.remaining() < RECORD_HEADER + length) {
+            nextSegment(RECORD_HEADER + length);
+        }
+
+        crc.reset();
+        crc.update(payload.duplicate());
+        segment.putInt(length);
+        segment.putInt((int) crc.getValue());
+        segment.put(payload);
+
+        if (++unforcedRecords >= groupSize) {
+            commit();
+        }
+    }
+
+    /**
+     * Maps the next region of the file, starting right after the last record.
+     */
+    private void nextSegment(final int needed) {
+        commit();
+        try {
+            mapSegment(segmentStart + segment.position(), Math.max(SEGMENT_SIZE, needed));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void mapSegment(final long start, final int size) throws IOException {
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+        segmentStart = start;
+        forcedPosition = 0;
+    }
+
+    /**
+     * Reads the records of a journal, handing every valid one to the replayer if there
+     * is one.
+     *
+     * @return the offset right after the last valid record
+     */
+    private static long read(final FileChannel channel, final Replayer replayer)
+            throws IOException {
+        long size = channel.size();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(0)), READ_BUFFER));
+        if (size < FILE_HEADER || input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("Not a command journal");
+        }
+
+        CRC32C checksum = new CRC32C();
+        byte[] payload = new byte[READ_BUFFER];
+        long end = FILE_HEADER;
+        while (true) {
+            int length;
+            int expected;
+            try {
+                length = input.readInt();
+                expected = input.readInt();
+            } catch (EOFException e) {
+                return end;
+            }
+            // A zero length is the unused end of a mapping, anything else is a torn record
+            if (length <= 0 || end + RECORD_HEADER + length > size) {
+                return end;
+            }
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            input.readFully(payload, 0, length);
+            checksum.reset();
+            checksum.update(payload, 0, length);
+            if ((int) checksum.getValue() != expected) {
+                return end;
+            }
+
+            if (replayer != null) {
+                replayer.apply(ByteBuffer.wrap(payload, 0, length));
+            }
+            end += RECORD_HEADER + length;
+        }
+    }
+
+    /**
+     * Applies the records of a journal to a bank.
+     */
+    private static final class Replayer {
+        private final BankSystem bankSystem;
+        private final OutputSink output = new DiscardingOutputSink();
+        private long records;
+
+        Replayer(final BankSystem bankSystem) {
+            this.bankSystem = bankSystem;
+        }
+
+        void apply(final ByteBuffer payload) {
+            CurrencyTable currencies = bankSystem.getCurrencies();
+            byte kind = payload.get();
+            switch (kind) {
+                case JournalCodec.USER -> bankSystem.addUser(new User(
+                        JournalCodec.getString(payload),
+                        JournalCodec.getString(payload),
+                        JournalCodec.getString(payload)));
+                case JournalCodec.EXCHANGE_RATE -> bankSystem.addExchangeRate(new ExchangeRate(
+                        currencies.intern(JournalCodec.getString(payload)),
+                        currencies.intern(JournalCodec.getString(payload)),
+                        payload.getDouble()));
+                case JournalCodec.COMMAND ->
+                        bankSystem.processCommand(JournalCodec.decodeCommand(payload), output);
+                case JournalCodec.FINISH -> bankSystem.finishProcessing();
+                default -> throw new IllegalStateException("Unknown journal record " + kind);
+            }
+            records++;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package org.poo.main.journal;
+
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of the journal records.
+ * A command is written as its opcode, its timestamp and a bit mask of the fields it
+ * sets, followed by those fields only, so a typical command takes a few dozen bytes
+ * instead of its JSON text. Strings are length-prefixed UTF-8 and a length of -1 stands
+ * for null.
+ */
+public final class JournalCodec {
+    /** A user loaded from the input. */
+    public static final byte USER = 1;
+    /** An exchange rate loaded from the input. */
+    public static final byte EXCHANGE_RATE = 2;
+    /** A command that may change the bank. */
+    public static final byte COMMAND = 3;
+    /** The end of a run, which resets the number generators. */
+    public static final byte FINISH = 4;
+
+    private static final int EMAIL = 0x0001;
+    private static final int ACCOUNT = 0x0002;
+    private static final int CURRENCY = 0x0004;
+    private static final int AMOUNT = 0x0008;
+    private static final int MIN_BALANCE = 0x0010;
+    private static final int TARGET = 0x0020;
+    private static final int DESCRIPTION = 0x0040;
+    private static final int CARD_NUMBER = 0x0080;
+    private static final int COMMERCIANT = 0x0100;
+    private static final int START_TIMESTAMP = 0x0200;
+    private static final int END_TIMESTAMP = 0x0400;
+    private static final int RECEIVER = 0x0800;
+    private static final int ALIAS = 0x1000;
+    private static final int ACCOUNT_TYPE = 0x2000;
+    private static final int INTEREST_RATE = 0x4000;
+    private static final int ACCOUNTS = 0x8000;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final CommandType[] TYPES = CommandType.values();
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    /**
+     * Encodes a user record.
+     *
+     * @param firstName the first name of the user
+     * @param lastName  the last name of the user
+     * @param email     the email of the user
+     * @return the payload, readable from position 0 until the next encoding
+     */
+    public ByteBuffer encodeUser(final String firstName, final String lastName,
+                                 final String email) {
+        buffer.clear();
+        putByte(USER);
+        putString(firstName);
+        putString(lastName);
+        putString(email);
+        return buffer.flip();
+    }
+
+    /**
+     * Encodes an exchange-rate record.
+     *
+     * @param from the code of the source currency
+     * @param to   the code of the target currency
+     * @param rate the rate
+     * @return the payload, readable from position 0 until the next encoding
+     */
+    public ByteBuffer encodeExchangeRate(final String from, final String to,
+                                         final double rate) {
+        buffer.clear();
+        putByte(EXCHANGE_RATE);
+        putString(from);
+        putString(to);
+        putDouble(rate);
+        return buffer.flip();
+    }
+
+    /**
+     * Encodes the end of a run.
+     *
+     * @return the payload, readable from position 0 until the next encoding
+     */
+    public ByteBuffer encodeFinish() {
+        buffer.clear();
+        putByte(FINISH);
+        return buffer.flip();
+    }
+
+    /**
+     * Encodes a command record.
+     *
+     * @param command the command
+     * @return the payload, readable from position 0 until the next encoding
+     */
+    public ByteBuffer encodeCommand(final CommandInput command) {
+        int mask = 0;
+        mask |= command.getEmail() != null ? EMAIL : 0;
+        mask |= command.getAccount() != null ? ACCOUNT : 0;
+        mask |= command.getCurrency() != null ? CURRENCY : 0;
+        mask |= command.getAmount() != 0 ? AMOUNT : 0;
+        mask |= command.getMinBalance() != 0 ? MIN_BALANCE : 0;
+        mask |= command.getTarget() != null ? TARGET : 0;
+        mask |= command.getDescription() != null ? DESCRIPTION : 0;
+        mask |= command.getCardNumber() != null ? CARD_NUMBER : 0;
+        mask |= command.getCommerciant() != null ? COMMERCIANT : 0;
+        mask |= command.getStartTimestamp() != 0 ? START_TIMESTAMP : 0;
+        mask |= command.getEndTimestamp() != 0 ? END_TIMESTAMP : 0;
+        mask |= command.getReceiver() != null ? RECEIVER : 0;
+        mask |= command.getAlias() != null ? ALIAS : 0;
+        mask |= command.getAccountType() != null ? ACCOUNT_TYPE : 0;
+        mask |= command.getInterestRate() != 0 ? INTEREST_RATE : 0;
+        mask |= command.getAccounts() != null ? ACCOUNTS : 0;
+
+        buffer.clear();
+        putByte(COMMAND);
+        putByte((byte) command.getType().ordinal());
+        putInt(command.getTimestamp());
+        putInt(mask);
+
+        if ((mask & EMAIL) != 0) {
+            putString(command.getEmail());
+        }
+        if ((mask & ACCOUNT) != 0) {
+            putString(command.getAccount());
+        }
+        if ((mask & CURRENCY) != 0) {
+            putString(command.getCurrency());
+        }
+        if ((mask & AMOUNT) != 0) {
+            putDouble(command.getAmount());
+        }
+        if ((mask & MIN_BALANCE) != 0) {
+            putDouble(command.getMinBalance());
+        }
+        if ((mask & TARGET) != 0) {
+            putString(command.getTarget());
+        }
+        if ((mask & DESCRIPTION) != 0) {
+            putString(command.getDescription());
+        }
+        if ((mask & CARD_NUMBER) != 0) {
+            putString(command.getCardNumber());
+        }
+        if ((mask & COMMERCIANT) != 0) {
+            putString(command.getCommerciant());
+        }
+        if ((mask & START_TIMESTAMP) != 0) {
+            putInt(command.getStartTimestamp());
+        }
+        if ((mask & END_TIMESTAMP) != 0) {
+            putInt(command.getEndTimestamp());
+        }
+        if ((mask & RECEIVER) != 0) {
+            putString(command.getReceiver());
+        }
+        if ((mask & ALIAS) != 0) {
+            putString(command.getAlias());
+        }
+        if ((mask & ACCOUNT_TYPE) != 0) {
+            putString(command.getAccountType());
+        }
+        if ((mask & INTEREST_RATE) != 0) {
+            putDouble(command.getInterestRate());
+        }
+        if ((mask & ACCOUNTS) != 0) {
+            putInt(command.getAccounts().size());
+            for (String iban : command.getAccounts()) {
+                putString(iban);
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Decodes a command record, whose kind byte was already read.
+     *
+     * @param payload the payload, positioned after the kind byte
+     * @return the command
+     */
+    public static CommandInput decodeCommand(final ByteBuffer payload) {
+        CommandInput command = new CommandInput();
+        command.setCommand(TYPES[payload.get()].getCommandName());
+        command.setTimestamp(payload.getInt());
+        int mask = payload.getInt();
+
+        if ((mask & EMAIL) != 0) {
+            command.setEmail(getString(payload));
+        }
+        if ((mask & ACCOUNT) != 0) {
+            command.setAccount(getString(payload));
+        }
+        if ((mask & CURRENCY) != 0) {
+            command.setCurrency(getString(payload));
+        }
+        if ((mask & AMOUNT) != 0) {
+            command.setAmount(payload.getDouble());
+        }
+        if ((mask & MIN_BALANCE) != 0) {
+            command.setMinBalance(payload.getDouble());
+        }
+        if ((mask & TARGET) != 0) {
+            command.setTarget(getString(payload));
+        }
+        if ((mask & DESCRIPTION) != 0) {
+            command.setDescription(getString(payload));
+        }
+        if ((mask & CARD_NUMBER) != 0) {
+            command.setCardNumber(getString(payload));
+        }
+        if ((mask & COMMERCIANT) != 0) {
+            command.setCommerciant(getString(payload));
+        }
+        if ((mask & START_TIMESTAMP) != 0) {
+            command.setStartTimestamp(payload.getInt());
+        }
+        if ((mask & END_TIMESTAMP) != 0) {
+            command.setEndTimestamp(payload.getInt());
+        }
+        if ((mask & RECEIVER) != 0) {
+            command.setReceiver(getString(payload));
+        }
+        if ((mask & ALIAS) != 0) {
+            command.setAlias(getString(payload));
+        }
+        if ((mask & ACCOUNT_TYPE) != 0) {
+            command.setAccountType(getString(payload));
+        }
+        if ((mask & INTEREST_RATE) != 0) {
+            command.setInterestRate(payload.getDouble());
+        }
+        if ((mask & ACCOUNTS) != 0) {
+            int size = payload.getInt();
+            List<String> accounts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                accounts.add(getString(payload));
+            }
+            command.setAccounts(accounts);
+        }
+        return command;
+    }
+
+    /**
+     * Reads a length-prefixed string.
+     *
+     * @param payload the payload, positioned at the string
+     * @return the string, or null
+     */
+    public static String getString(final ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(payload.array(), payload.arrayOffset() + payload.position(),
+                length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+
+    private void putByte(final byte value) {
+        ensure(Byte.BYTES);
+        buffer.put(value);
+    }
+
+    private void putInt(final int value) {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    private void putDouble(final double value) {
+        ensure(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    private void putString(final String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void ensure(final int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(
+                    Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.poo.main.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader of a snapshot written by a SnapshotOutput, over a buffer holding the whole
+ * file, usually a read-only mapping of it. Primitive arrays are copied out in bulk.
+ */
+public final class SnapshotInput {
+    private final ByteBuffer buffer;
+
+    /**
+     * @param buffer the snapshot, positioned at the first value to read
+     */
+    public SnapshotInput(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return the next byte
+     */
+    public byte getByte() {
+        return buffer.get();
+    }
+
+    /**
+     * @return the next int
+     */
+    public int getInt() {
+        return buffer.getInt();
+    }
+
+    /**
+     * @return the next long
+     */
+    public long getLong() {
+        return buffer.getLong();
+    }
+
+    /**
+     * @return the next double
+     */
+    public double getDouble() {
+        return buffer.getDouble();
+    }
+
+    /**
+     * @return the next string, or null
+     */
+    public String getString() {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads values into the start of an array.
+     *
+     * @param values the array to fill
+     * @param length the number of values to read
+     */
+    public void getBytes(final byte[] values, final int length) {
+        buffer.get(values, 0, length);
+    }
+
+    /**
+     * Reads values into the start of an array.
+     *
+     * @param values the array to fill
+     * @param length the number of values to read
+     */
+    public void getInts(final int[] values, final int length) {
+        buffer.asIntBuffer().get(values, 0, length);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+    }
+
+    /**
+     * Reads values into the start of an array.
+     *
+     * @param values the array to fill
+     * @param length the number of values to read
+     */
+    public void getLongs(final long[] values, final int length) {
+        buffer.asLongBuffer().get(values, 0, length);
+        buffer.position(buffer.position() + length * Long.BYTES);
+    }
+}
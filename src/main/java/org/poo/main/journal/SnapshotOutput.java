@@ -0,0 +1,162 @@
+package org.poo.main.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Buffered writer of a snapshot file.
+ * Values go through a direct buffer that is written to the channel whenever it fills,
+ * and primitive arrays are copied into it in bulk. The CRC32C of everything written is
+ * kept as it goes and appended on close, so readers can reject a damaged file.
+ * Strings are length-prefixed UTF-8 and a length of -1 stands for null.
+ */
+public final class SnapshotOutput implements Closeable {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * @param channel the channel to write to, positioned at the start of the snapshot
+     */
+    public SnapshotOutput(final FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @param value the byte to write
+     */
+    public void putByte(final byte value) {
+        ensure(Byte.BYTES);
+        buffer.put(value);
+    }
+
+    /**
+     * @param value the int to write
+     */
+    public void putInt(final int value) {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * @param value the long to write
+     */
+    public void putLong(final long value) {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * @param value the double to write
+     */
+    public void putDouble(final double value) {
+        ensure(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * @param value the string to write, or null
+     */
+    public void putString(final String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        putBytes(bytes, bytes.length);
+    }
+
+    /**
+     * Writes the first values of an array, without a length.
+     *
+     * @param values the array
+     * @param length the number of values to write
+     */
+    public void putBytes(final byte[] values, final int length) {
+        int offset = 0;
+        while (offset < length) {
+            ensure(1);
+            int count = Math.min(length - offset, buffer.remaining());
+            buffer.put(values, offset, count);
+            offset += count;
+        }
+    }
+
+    /**
+     * Writes the first values of an array, without a length.
+     *
+     * @param values the array
+     * @param length the number of values to write
+     */
+    public void putInts(final int[] values, final int length) {
+        int offset = 0;
+        while (offset < length) {
+            ensure(Integer.BYTES);
+            int count = Math.min(length - offset, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            offset += count;
+        }
+    }
+
+    /**
+     * Writes the first values of an array, without a length.
+     *
+     * @param values the array
+     * @param length the number of values to write
+     */
+    public void putLongs(final long[] values, final int length) {
+        int offset = 0;
+        while (offset < length) {
+            ensure(Long.BYTES);
+            int count = Math.min(length - offset, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            offset += count;
+        }
+    }
+
+    /**
+     * Writes the checksum of the snapshot and flushes it to the channel. The channel
+     * itself stays open.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensure(final int bytes) {
+        if (buffer.remaining() < bytes) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,201 @@
+package org.poo.main.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.fileio.CommandType;
+import org.poo.main.bank.CommandHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-command instrumentation of a bank, cheap enough to stay on.
+ * For every type of command it counts the invocations and the errors reported to the
+ * user and keeps a log-bucketed latency histogram. It also remembers the slowest
+ * commands above a threshold, with their input timestamps. Everything can be recorded
+ * from several threads, so the sharded engine's shards share one instance.
+ */
+public final class CommandMetrics {
+    /** Commands slower than this are candidates for the slow-command log. */
+    public static final long DEFAULT_SLOW_THRESHOLD_NANOS = 1_000_000;
+    private static final int SLOW_LOG_SIZE = 32;
+    private static final double P50 = 50;
+    private static final double P90 = 90;
+    private static final double P99 = 99;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[CommandType.values().length];
+    private final LongAdder[] errors = new LongAdder[CommandType.values().length];
+    private final long slowThresholdNanos;
+
+    // The slowest commands, with the fastest of them at the head
+    private final PriorityQueue<SlowCommand> slowCommands =
+            new PriorityQueue<>(Comparator.comparingLong(SlowCommand::nanos));
+    private volatile long slowFloorNanos;
+
+    /**
+     * A command that took longer than the slow threshold.
+     *
+     * @param type      the type of the command
+     * @param timestamp the input timestamp of the command
+     * @param nanos     how long it took, in nanoseconds
+     */
+    public record SlowCommand(CommandType type, int timestamp, long nanos) {
+    }
+
+    public CommandMetrics() {
+        this(DEFAULT_SLOW_THRESHOLD_NANOS);
+    }
+
+    /**
+     * @param slowThresholdNanos the latency from which commands enter the slow log
+     */
+    public CommandMetrics(final long slowThresholdNanos) {
+        this.slowThresholdNanos = slowThresholdNanos;
+        this.slowFloorNanos = slowThresholdNanos;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            errors[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Wraps a handler so every command it runs is timed.
+     *
+     * @param type    the type of command the handler runs
+     * @param handler the handler to time
+     * @return the timed handler
+     */
+    public CommandHandler instrument(final CommandType type, final CommandHandler handler) {
+        LatencyHistogram histogram = latencies[type.ordinal()];
+        return (command, output) -> {
+            long start = System.nanoTime();
+            try {
+                handler.handle(command, output);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                histogram.record(nanos);
+                if (nanos >= slowFloorNanos) {
+                    recordSlow(new SlowCommand(type, command.getTimestamp(), nanos));
+                }
+            }
+        };
+    }
+
+    /**
+     * Counts an error reported to the user by a command.
+     *
+     * @param type the type of the failing command
+     */
+    public void recordError(final CommandType type) {
+        errors[type.ordinal()].increment();
+    }
+
+    /**
+     * @param type a type of command
+     * @return how many commands of the type ran
+     */
+    public long getCount(final CommandType type) {
+        return latencies[type.ordinal()].getCount();
+    }
+
+    /**
+     * @param type a type of command
+     * @return how many commands of the type reported an error
+     */
+    public long getErrors(final CommandType type) {
+        return errors[type.ordinal()].sum();
+    }
+
+    /**
+     * @param type a type of command
+     * @return the latency histogram of the type
+     */
+    public LatencyHistogram getLatencies(final CommandType type) {
+        return latencies[type.ordinal()];
+    }
+
+    /**
+     * @return the slowest commands, slowest first
+     */
+    public List<SlowCommand> getSlowCommands() {
+        List<SlowCommand> slowest;
+        synchronized (slowCommands) {
+            slowest = new ArrayList<>(slowCommands);
+        }
+        slowest.sort(Comparator.comparingLong(SlowCommand::nanos).reversed());
+        return slowest;
+    }
+
+    /**
+     * Builds the JSON report of the metrics. Commands that never ran are left out and the
+     * latencies are given in nanoseconds.
+     *
+     * @return the report
+     */
+    public ObjectNode toJson() {
+        ObjectNode report = OBJECT_MAPPER.createObjectNode();
+        ObjectNode commands = report.putObject("commands");
+        for (CommandType type : CommandType.values()) {
+            LatencyHistogram histogram = latencies[type.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            ObjectNode node = commands.putObject(nameOf(type));
+            node.put("count", histogram.getCount());
+            node.put("errors", getErrors(type));
+            node.put("meanNanos", Math.round(histogram.getMean()));
+            node.put("p50Nanos", histogram.getPercentile(P50));
+            node.put("p90Nanos", histogram.getPercentile(P90));
+            node.put("p99Nanos", histogram.getPercentile(P99));
+            node.put("maxNanos", histogram.getMax());
+        }
+
+        report.put("slowThresholdNanos", slowThresholdNanos);
+        ArrayNode slow = report.putArray("slowCommands");
+        for (SlowCommand command : getSlowCommands()) {
+            ObjectNode node = slow.addObject();
+            node.put("command", nameOf(command.type()));
+            node.put("timestamp", command.timestamp());
+            node.put("nanos", command.nanos());
+        }
+        return report;
+    }
+
+    /**
+     * Writes the JSON report to a file.
+     *
+     * @param file the report file
+     * @throws IOException in case of exceptions to writing
+     */
+    public void export(final File file) throws IOException {
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, toJson());
+    }
+
+    private static String nameOf(final CommandType type) {
+        return type == CommandType.UNKNOWN ? "unknown" : type.getCommandName();
+    }
+
+    /**
+     * Keeps a slow command if it is among the slowest seen. Once the log is full, the
+     * floor rises to its fastest entry, so most commands skip the lock.
+     */
+    private void recordSlow(final SlowCommand command) {
+        synchronized (slowCommands) {
+            slowCommands.add(command);
+            if (slowCommands.size() > SLOW_LOG_SIZE) {
+                slowCommands.poll();
+            }
+            if (slowCommands.size() == SLOW_LOG_SIZE) {
+                slowFloorNanos = Math.max(slowThresholdNanos, slowCommands.peek().nanos());
+            }
+        }
+    }
+}
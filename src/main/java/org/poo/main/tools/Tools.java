@@ -1,17 +1,22 @@
 package org.poo.main.tools;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
-import java.util.HashMap;
 import org.poo.fileio.CommandInput;
 import org.poo.main.cards.Card;
 import org.poo.main.accounts.Account;
-import org.poo.main.exchange_rate.ExchangeRate;
+import org.poo.main.bank.BankRegistry;
+import org.poo.main.exchange_rate.Currency;
+import org.poo.main.exchange_rate.ExchangeRateTable;
+import org.poo.main.exchange_rate.Money;
 import org.poo.main.transactions.Transaction;
 import org.poo.main.transactions.TransactionFilter;
 import org.poo.main.user.User;
@@ -23,58 +28,6 @@ public final class Tools {
     private Tools() {
     }
 
-    /**
-     * Finds a user by email from a list of users.
-     *
-     * @param email the email to search for
-     * @param users the list of users
-     * @return the user with the specified email, or null if not found
-     */
-    public static User findUserByEmail(final String email, final List<User> users) {
-        for (User user : users) {
-            if (user.getEmail().equals(email)) {
-                return user;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Finds an account by IBAN from a list of users.
-     *
-     * @param iban  the IBAN to search for
-     * @param users the list of users
-     * @return the account with the specified IBAN, or null if not found
-     */
-    public static Account findAccountByIBAN(final String iban, final List<User> users) {
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(iban)) {
-                    return account;
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Finds a user associated with a given IBAN.
-     *
-     * @param iban  the IBAN to search for
-     * @param users the list of users
-     * @return the user associated with the specified IBAN, or null if not found
-     */
-    public static User findUserByAccount(final String iban, final List<User> users) {
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(iban)) {
-                    return user;
-                }
-            }
-        }
-        return null;
-    }
-
     /**
      * Converts a list of cards into a JSON array.
      *
@@ -106,7 +59,8 @@ public final class Tools {
         for (Account account : accounts) {
             ObjectNode accountNode = ObjectMapper.createObjectNode();
             accountNode.put("IBAN", account.getIban());
-            accountNode.put("balance", account.getBalance());
+            accountNode.put("balance", Money.toAmount(account.getBalance(),
+                    account.getCurrencyRef()));
             accountNode.put("currency", account.getCurrency());
             accountNode.put("type", account.getAccountType());
 
@@ -137,41 +91,96 @@ public final class Tools {
         return userNode;
     }
 
+    /**
+     * Converts the changes of a user since the last print into a JSON object: the user,
+     * its changed accounts in full, and the IBANs and card numbers removed since.
+     *
+     * @param user the changed user
+     * @return a JSON object representing the changes
+     */
+    public static ObjectNode printUserChanges(final User user) {
+        ObjectNode userNode = ObjectMapper.createObjectNode();
+        userNode.put("firstName", user.getFirstName());
+        userNode.put("lastName", user.getLastName());
+        userNode.put("email", user.getEmail());
+
+        List<Account> changedAccounts = new ArrayList<>();
+        for (Account account : user.getAccounts()) {
+            if (account.isChanged()) {
+                changedAccounts.add(account);
+            }
+        }
+        userNode.set("accounts", printAccountsForUser(changedAccounts));
+
+        if (!user.getRemovedAccounts().isEmpty()) {
+            ArrayNode removedAccounts = userNode.putArray("removedAccounts");
+            user.getRemovedAccounts().forEach(removedAccounts::add);
+        }
+        if (!user.getRemovedCards().isEmpty()) {
+            ArrayNode removedCards = userNode.putArray("removedCards");
+            user.getRemovedCards().forEach(removedCards::add);
+        }
+
+        return userNode;
+    }
+
+    /**
+     * Streams a user like printUser converts it. The user is kept as tokens until it
+     * changes, so an unchanged user is replayed instead of being converted again.
+     *
+     * @param generator the generator to write to
+     * @param user      the user to write
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void writeUser(final JsonGenerator generator, final User user)
+            throws IOException {
+        TokenBuffer printed = user.getPrinted();
+        if (printed == null) {
+            printed = new TokenBuffer(ObjectMapper, false);
+            printed.writeTree(printUser(user));
+            user.setPrinted(printed);
+        }
+        printed.serialize(generator);
+    }
+
     /**
      * Retrieves the exchange rate between two currencies.
      *
      * @param from          the source currency
      * @param to            the target currency
-     * @param exchangeRates the list of exchange rates
+     * @param exchangeRates the exchange-rate table
      * @return the exchange rate, or 0 if not found
      */
-    public static double getExchangeRate(final String from, final String to,
-                                         final List<ExchangeRate> exchangeRates) {
-        return ExchangeRate.getExchangeRate(from, to, exchangeRates);
+    public static double getExchangeRate(final Currency from, final Currency to,
+                                         final ExchangeRateTable exchangeRates) {
+        return exchangeRates.getRate(from, to);
     }
 
     /**
      * Calculates the final amount after applying the exchange rate.
      *
      * @param account       the account involved
-     * @param amount        the initial amount
-     * @param exchangeRates the list of exchange rates
-     * @param currency      the target currency
-     * @return the final amount in the target currency, or 0 if no rate is found
+     * @param amount        the initial amount, in minor units of its currency
+     * @param exchangeRates the exchange-rate table
+     * @param currency      the currency of the initial amount
+     * @return the final amount in minor units of the account's currency,
+     *         or 0 if no rate is found
      */
-    public static double calculateFinalAmount(final Account account, final double amount,
-                                              final List<ExchangeRate> exchangeRates,
-                                              final String currency) {
-        double finalAmount = amount;
-
-        if (!account.getCurrency().equals(currency)) {
-            double rate = getExchangeRate(currency, account.getCurrency(), exchangeRates);
-            if (rate == 0) {
-                return 0;
-            }
-            finalAmount = amount * rate;
+    public static long calculateFinalAmount(final Account account, final long amount,
+                                            final ExchangeRateTable exchangeRates,
+                                            final Currency currency) {
+        if (currency == null) {
+            return 0;
+        }
+        if (account.getCurrencyId() == currency.getId()) {
+            return amount;
         }
-        return finalAmount;
+
+        double rate = getExchangeRate(currency, account.getCurrencyRef(), exchangeRates);
+        if (rate == 0) {
+            return 0;
+        }
+        return Money.convert(amount, currency, account.getCurrencyRef(), rate);
     }
 
     /**
@@ -185,72 +194,38 @@ public final class Tools {
         ArrayNode transactionsArray = ObjectMapper.createArrayNode();
 
         for (Transaction transaction : transactions) {
-            ObjectNode transactionNode = ObjectMapper.createObjectNode();
-
-            // Add common fields for all transactions
-            transactionNode.put("description", transaction.getDescription());
-            transactionNode.put("timestamp", transaction.getTimestamp());
-
-            // Check if the transaction involves split payment
-            if (transaction.getInvolvedAccounts() != null
-                    && !transaction.getInvolvedAccounts().isEmpty()) {
-                // Create an array for involved accounts
-                ArrayNode involvedAccountsArray = ObjectMapper.createArrayNode();
-                for (String account : transaction.getInvolvedAccounts()) {
-                    // Add each involved account to the array
-                    involvedAccountsArray.add(account);
-                }
-
-                // Add amount, currency, and involved accounts fields to the transaction node
-                transactionNode.put("description", transaction.getDescription());
-                transactionNode.put("amount", transaction.getAmount());
-                transactionNode.put("currency", transaction.getCurrency());
-                transactionNode.set("involvedAccounts", involvedAccountsArray);
+            transactionsArray.add(getTransactionNode(transaction));
+        }
 
-                // Check if there is an error field
-                if (transaction.getError() != null) {
-                    transactionNode.put("error", transaction.getError());
-                }
-            } else {
-                // Add other fields needed for different types of transaction
-                if (transaction.getDescription().equals("The card has been destroyed")
-                        || transaction.getDescription().equals("New card created")) {
-                    transactionNode.put("account", transaction.getAccountIBAN());
-                }
-                if (transaction.getCardNumber() != null) {
-                    transactionNode.put("card", transaction.getCardNumber());
-                }
-                if (transaction.getCardHolder() != null) {
-                    transactionNode.put("cardHolder", transaction.getCardHolder());
-                }
-                if (transaction.getAmount() != null) {
-                    if ("Card payment".equals(transaction.getDescription())) {
-                        transactionNode.put("amount", transaction.getAmount());
-                    } else {
-                        String formattedAmount =
-                                transaction.getAmount() + " " + transaction.getCurrency();
-
-                        transactionNode.put("amount", formattedAmount);
-                    }
-                }
-                if (transaction.getSenderIBAN() != null) {
-                    transactionNode.put("senderIBAN", transaction.getSenderIBAN());
-                }
-                if (transaction.getReceiverIBAN() != null) {
-                    transactionNode.put("receiverIBAN", transaction.getReceiverIBAN());
-                }
-                if (transaction.getTransferType() != null) {
-                    transactionNode.put("transferType", transaction.getTransferType());
-                }
-                if (transaction.getCommerciant() != null) {
-                    transactionNode.put("commerciant", transaction.getCommerciant());
-                }
-            }
+        return transactionsArray;
+    }
 
-            // Add the transaction node to the array
-            transactionsArray.add(transactionNode);
+    /**
+     * Writes a list of transactions as a JSON array, one transaction at a time,
+     * without building the whole array in memory first.
+     *
+     * @param generator    the generator to write to
+     * @param transactions the list of transactions
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void writeTransactions(final JsonGenerator generator,
+                                         final List<Transaction> transactions)
+            throws IOException {
+        generator.writeStartArray();
+        for (Transaction transaction : transactions) {
+            TransactionSerializer.write(generator, transaction);
         }
-        return transactionsArray;
+        generator.writeEndArray();
+    }
+
+    /**
+     * Converts a single transaction into a JSON object.
+     *
+     * @param transaction the transaction to convert
+     * @return a JSON object representing the transaction
+     */
+    public static ObjectNode getTransactionNode(final Transaction transaction) {
+        return TransactionSerializer.toNode(transaction);
     }
 
     /**
@@ -258,17 +233,17 @@ public final class Tools {
      * for a given IBAN and returns the corresponding user.
      *
      * @param command the command input containing the IBAN
-     * @param users the list of users to search through
+     * @param registry the registry indexing the bank's accounts
      * @return the user associated with the account, or null if no account is found
      */
     private static User validateUserAndAccount(final CommandInput command,
-                                               final List<User> users) {
+                                               final BankRegistry registry) {
         String iban = command.getAccount();
-        Account account = findAccountByIBAN(iban, users);
+        Account account = registry.findAccountByIBAN(iban);
         if (account == null) {
             return null;
         }
-        return findUserByAccount(iban, users);
+        return registry.findUserByAccount(iban);
     }
 
     /**
@@ -277,41 +252,45 @@ public final class Tools {
      * @param command            the command input
      * @param filter             the transaction filter
      * @param includeCommerciants flag to include commerciants in the report
-     * @param users              the list of users
-     * @param exchangeRates      the list of exchange rates
+     * @param registry           the registry indexing the bank's accounts
+     * @param exchangeRates      the exchange-rate table
      * @return an ObjectNode containing the report data
      */
     public static ObjectNode generateReportData(
             final CommandInput command,
             final TransactionFilter filter,
             final boolean includeCommerciants,
-            final List<User> users,
-            final List<ExchangeRate> exchangeRates) {
+            final BankRegistry registry,
+            final ExchangeRateTable exchangeRates) {
 
         ObjectMapper objectMapper = new ObjectMapper();
         String iban = command.getAccount();
 
         // Validate the user and account
-        User user = validateUserAndAccount(command, users);
+        User user = validateUserAndAccount(command, registry);
         if (user == null) {
             return createErrorNode(command, "Account not found");
         }
+        Account account = registry.findAccountByIBAN(iban);
 
-        // Filtering the transactions
+        // Filtering the transactions, starting from the ones indexed in the report window
+        List<Transaction> windowTransactions = user.getTransactionIndex()
+                .range(iban, command.getStartTimestamp(), command.getEndTimestamp());
         List<Transaction> filteredTransactions =
-                filterTransactions(user.getTransactions(), command, filter, iban);
+                filterTransactions(windowTransactions, command, filter, iban);
 
-        // Calculate totals for commerciants if requested
-        Map<String, Double> commerciantsTotals;
+        // Read the totals for commerciants if requested, from the ones the index keeps
+        Map<String, long[]> commerciantsTotals;
         if (includeCommerciants) {
-            commerciantsTotals = calculateCommerciantsTotals(filteredTransactions);
+            commerciantsTotals = user.getTransactionIndex().commerciantTotals(iban,
+                    command.getStartTimestamp(), command.getEndTimestamp());
         } else {
             commerciantsTotals = null;
         }
 
         // Generate the report output node with filtered transactions and commerciant totals
         return createReportOutputNode(command, filteredTransactions, commerciantsTotals,
-                                                        includeCommerciants, iban, user);
+                                                        includeCommerciants, account);
     }
 
     /**
@@ -320,27 +299,27 @@ public final class Tools {
      *
      * @param command the command input containing the parameters for the report
      * @param filteredTransactions the list of filtered transactions to include in the report
-     * @param commerciantsTotals a map of commerciants' total transaction amounts
+     * @param commerciantsTotals a map of commerciants' total transaction amounts,
+     *                           in the order of the commerciants' names
      * @param includeCommerciants flag to indicate if commerciants data should be included
-     * @param iban the IBAN for which the report is being created
-     * @param user the user associated with the account
+     * @param account the account for which the report is being created
      * @return an ObjectNode representing the report output
      */
     private static ObjectNode createReportOutputNode(
             final CommandInput command,
             final List<Transaction> filteredTransactions,
-            final Map<String, Double> commerciantsTotals,
+            final Map<String, long[]> commerciantsTotals,
             boolean includeCommerciants,
-            final String iban,
-            final User user) {
+            final Account account) {
 
         ObjectMapper objectMapper = new ObjectMapper();
         ObjectNode outputNode = objectMapper.createObjectNode();
 
         // Add general account information
-        outputNode.put("IBAN", iban);
-        outputNode.put("balance", findAccountByIBAN(iban, List.of(user)).getBalance());
-        outputNode.put("currency", findAccountByIBAN(iban, List.of(user)).getCurrency());
+        outputNode.put("IBAN", account.getIban());
+        outputNode.put("balance", Money.toAmount(account.getBalance(),
+                account.getCurrencyRef()));
+        outputNode.put("currency", account.getCurrency());
 
         // AAdd filtered transactions to the output node
         ArrayNode transactionsArray = getTransactions(filteredTransactions);
@@ -350,16 +329,15 @@ public final class Tools {
         if (includeCommerciants && commerciantsTotals != null) {
             ArrayNode commerciantsArray = objectMapper.createArrayNode();
 
-            // Sort commerciants alphabetically by name
-            commerciantsTotals.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(entry -> {
-                        // Create node for each commerciant
-                        ObjectNode commerciantNode = objectMapper.createObjectNode();
-                        commerciantNode.put("commerciant", entry.getKey());
-                        commerciantNode.put("total", entry.getValue());
-                        commerciantsArray.add(commerciantNode);
-                    });
+            // The commerciants are already sorted alphabetically by name
+            for (Map.Entry<String, long[]> entry : commerciantsTotals.entrySet()) {
+                // Create node for each commerciant
+                ObjectNode commerciantNode = objectMapper.createObjectNode();
+                commerciantNode.put("commerciant", entry.getKey());
+                commerciantNode.put("total", Money.toAmount(entry.getValue()[0],
+                        account.getCurrencyRef()));
+                commerciantsArray.add(commerciantNode);
+            }
 
             outputNode.set("commerciants", commerciantsArray);
         }
@@ -433,34 +411,4 @@ public final class Tools {
 
         return filteredTransactions;
     }
-
-    /**
-     * Calculates the total transaction amount for each commerciant based on the
-     * list of transactions. The totals are stored in a map with the commerciant name
-     * as the key and the total amount as the value.
-     *
-     * @param transactions the list of transactions to calculate totals from
-     * @return a map with commerciants as keys and total amounts as values
-     */
-    private static Map<String, Double> calculateCommerciantsTotals(
-                                    final List<Transaction> transactions) {
-
-        // Create a map to store the total amount for each commerciant
-        Map<String, Double> commerciantsTotals = new HashMap<>();
-
-        // Iterate through all the transactions
-        for (Transaction transaction : transactions) {
-            String commerciant = transaction.getCommerciant();
-            if (commerciant != null) {
-                // Update the total amount for the commerciant, adding if exists,
-                // or initializing if not
-                commerciantsTotals.put(commerciant,
-                        commerciantsTotals.getOrDefault(commerciant, 0.0)
-                                + transaction.getAmount());
-            }
-        }
-
-        // Return the map containing total amounts for each commerciant
-        return commerciantsTotals;
-    }
 }
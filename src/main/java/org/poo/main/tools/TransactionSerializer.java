@@ -0,0 +1,300 @@
+package org.poo.main.tools;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.main.exchange_rate.Currency;
+import org.poo.main.exchange_rate.Money;
+import org.poo.main.transactions.Transaction;
+import org.poo.main.transactions.TransactionRecord.AccountCreated;
+import org.poo.main.transactions.TransactionRecord.CardCreated;
+import org.poo.main.transactions.TransactionRecord.CardDestroyed;
+import org.poo.main.transactions.TransactionRecord.CardFrozen;
+import org.poo.main.transactions.TransactionRecord.CardPayment;
+import org.poo.main.transactions.TransactionRecord.DeleteAccountError;
+import org.poo.main.transactions.TransactionRecord.InsufficientFunds;
+import org.poo.main.transactions.TransactionRecord.InterestRateChange;
+import org.poo.main.transactions.TransactionRecord.MinimumBalanceWarning;
+import org.poo.main.transactions.TransactionRecord.MoneyReceived;
+import org.poo.main.transactions.TransactionRecord.MoneySent;
+import org.poo.main.transactions.TransactionRecord.SplitPayment;
+import org.poo.main.transactions.TransactionRecord.SplitPaymentError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Serializes transactions, picking the fields to write from the record type of the
+ * transaction. The field names, and the descriptions of the kinds that always have the
+ * same one, are encoded once, so streaming a transaction only encodes its values.
+ * The switch is over the sealed record hierarchy, so a new kind does not compile
+ * until it is given its fields here.
+ */
+public final class TransactionSerializer {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializedString ACCOUNT = new SerializedString("account");
+    private static final SerializedString CARD = new SerializedString("card");
+    private static final SerializedString CARD_HOLDER = new SerializedString("cardHolder");
+    private static final SerializedString AMOUNT = new SerializedString("amount");
+    private static final SerializedString CURRENCY = new SerializedString("currency");
+    private static final SerializedString SENDER_IBAN = new SerializedString("senderIBAN");
+    private static final SerializedString RECEIVER_IBAN = new SerializedString("receiverIBAN");
+    private static final SerializedString TRANSFER_TYPE = new SerializedString("transferType");
+    private static final SerializedString COMMERCIANT = new SerializedString("commerciant");
+    private static final SerializedString INVOLVED_ACCOUNTS =
+            new SerializedString("involvedAccounts");
+    private static final SerializedString ERROR = new SerializedString("error");
+
+    private static final SerializedString ACCOUNT_CREATED =
+            new SerializedString(AccountCreated.DESCRIPTION);
+    private static final SerializedString CARD_CREATED =
+            new SerializedString(CardCreated.DESCRIPTION);
+    private static final SerializedString CARD_PAYMENT =
+            new SerializedString(CardPayment.DESCRIPTION);
+    private static final SerializedString INSUFFICIENT_FUNDS =
+            new SerializedString(InsufficientFunds.DESCRIPTION);
+    private static final SerializedString CARD_DESTROYED =
+            new SerializedString(CardDestroyed.DESCRIPTION);
+    private static final SerializedString MINIMUM_BALANCE_WARNING =
+            new SerializedString(MinimumBalanceWarning.DESCRIPTION);
+    private static final SerializedString CARD_FROZEN =
+            new SerializedString(CardFrozen.DESCRIPTION);
+    private static final SerializedString DELETE_ACCOUNT_ERROR =
+            new SerializedString(DeleteAccountError.DESCRIPTION);
+    private static final SerializedString SENT = new SerializedString(MoneySent.TRANSFER_TYPE);
+    private static final SerializedString RECEIVED =
+            new SerializedString(MoneyReceived.TRANSFER_TYPE);
+
+    private TransactionSerializer() {
+    }
+
+    /**
+     * Streams a transaction as a JSON object.
+     *
+     * @param generator   the generator to write to
+     * @param transaction the transaction
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void write(final JsonGenerator generator, final Transaction transaction)
+            throws IOException {
+        generator.writeStartObject();
+        writeFields(new GeneratorFields(generator), transaction);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Converts a transaction into a JSON object, with the same fields write streams.
+     *
+     * @param transaction the transaction
+     * @return a JSON object representing the transaction
+     */
+    public static ObjectNode toNode(final Transaction transaction) {
+        ObjectNode node = OBJECT_MAPPER.createObjectNode();
+        try {
+            writeFields(new NodeFields(node), transaction);
+        } catch (IOException e) {
+            // Building a node does not write anywhere
+            throw new UncheckedIOException(e);
+        }
+        return node;
+    }
+
+    /**
+     * Writes the fields of a transaction, the single place where the shape of every kind
+     * is coded.
+     */
+    private static void writeFields(final Fields fields, final Transaction transaction)
+            throws IOException {
+        switch (transaction) {
+            case AccountCreated record -> writeHeader(fields, ACCOUNT_CREATED, record);
+            case CardCreated record -> {
+                writeHeader(fields, CARD_CREATED, record);
+                writeCard(fields, record.accountIBAN(), record.cardNumber(),
+                        record.cardHolder());
+            }
+            case MoneySent record -> {
+                writeHeader(fields, record);
+                writeTransfer(fields, record.amount(), record.currency(),
+                        record.senderIBAN(), record.receiverIBAN(), SENT);
+            }
+            case MoneyReceived record -> {
+                writeHeader(fields, record);
+                writeTransfer(fields, record.amount(), record.currency(),
+                        record.senderIBAN(), record.receiverIBAN(), RECEIVED);
+            }
+            case CardPayment record -> {
+                writeHeader(fields, CARD_PAYMENT, record);
+                fields.number(AMOUNT, Money.toAmount(record.amount(), record.currency()));
+                writeOptional(fields, COMMERCIANT, record.commerciant());
+            }
+            case InsufficientFunds record -> writeHeader(fields, INSUFFICIENT_FUNDS, record);
+            case CardDestroyed record -> {
+                writeHeader(fields, CARD_DESTROYED, record);
+                writeCard(fields, record.accountIBAN(), record.cardNumber(),
+                        record.cardHolder());
+            }
+            case MinimumBalanceWarning record ->
+                    writeHeader(fields, MINIMUM_BALANCE_WARNING, record);
+            case CardFrozen record -> writeHeader(fields, CARD_FROZEN, record);
+            case SplitPayment record -> {
+                writeHeader(fields, record);
+                writeSplit(fields, record.amount(), record.currency(),
+                        record.involvedAccounts(), null);
+            }
+            case SplitPaymentError record -> {
+                writeHeader(fields, record);
+                writeSplit(fields, record.amount(), record.currency(),
+                        record.involvedAccounts(), record.error());
+            }
+            case DeleteAccountError record -> writeHeader(fields, DELETE_ACCOUNT_ERROR, record);
+            case InterestRateChange record -> writeHeader(fields, record);
+        }
+    }
+
+    private static void writeHeader(final Fields fields, final SerializableString description,
+                                    final Transaction transaction) throws IOException {
+        fields.string(DESCRIPTION, description);
+        fields.number(TIMESTAMP, transaction.getTimestamp());
+    }
+
+    private static void writeHeader(final Fields fields, final Transaction transaction)
+            throws IOException {
+        fields.string(DESCRIPTION, transaction.getDescription());
+        fields.number(TIMESTAMP, transaction.getTimestamp());
+    }
+
+    private static void writeCard(final Fields fields, final String account,
+                                  final String card, final String cardHolder)
+            throws IOException {
+        fields.string(ACCOUNT, account);
+        writeOptional(fields, CARD, card);
+        writeOptional(fields, CARD_HOLDER, cardHolder);
+    }
+
+    private static void writeTransfer(final Fields fields, final long amount,
+                                      final Currency currency, final String senderIBAN,
+                                      final String receiverIBAN,
+                                      final SerializableString transferType)
+            throws IOException {
+        // The amount of a transfer is followed by its currency code, e.g. "12.5 EUR"
+        fields.string(AMOUNT, Money.toAmount(amount, currency) + " " + currency.getCode());
+        writeOptional(fields, SENDER_IBAN, senderIBAN);
+        writeOptional(fields, RECEIVER_IBAN, receiverIBAN);
+        fields.string(TRANSFER_TYPE, transferType);
+    }
+
+    private static void writeSplit(final Fields fields, final long amount,
+                                   final Currency currency, final List<String> involvedAccounts,
+                                   final String error) throws IOException {
+        fields.number(AMOUNT, Money.toAmount(amount, currency));
+        fields.string(CURRENCY, currency.getCode());
+        fields.strings(INVOLVED_ACCOUNTS, involvedAccounts);
+        writeOptional(fields, ERROR, error);
+    }
+
+    private static void writeOptional(final Fields fields, final SerializableString name,
+                                      final String value) throws IOException {
+        if (value != null) {
+            fields.string(name, value);
+        }
+    }
+
+    /**
+     * Destination of the fields of a transaction object.
+     */
+    private interface Fields {
+        void string(SerializableString name, String value) throws IOException;
+
+        void string(SerializableString name, SerializableString value) throws IOException;
+
+        void number(SerializableString name, int value) throws IOException;
+
+        void number(SerializableString name, double value) throws IOException;
+
+        void strings(SerializableString name, List<String> values) throws IOException;
+    }
+
+    /**
+     * Streams the fields to a generator, with the names and fixed values pre-encoded.
+     */
+    private record GeneratorFields(JsonGenerator generator) implements Fields {
+        @Override
+        public void string(final SerializableString name, final String value)
+                throws IOException {
+            generator.writeFieldName(name);
+            generator.writeString(value);
+        }
+
+        @Override
+        public void string(final SerializableString name, final SerializableString value)
+                throws IOException {
+            generator.writeFieldName(name);
+            generator.writeString(value);
+        }
+
+        @Override
+        public void number(final SerializableString name, final int value)
+                throws IOException {
+            generator.writeFieldName(name);
+            generator.writeNumber(value);
+        }
+
+        @Override
+        public void number(final SerializableString name, final double value)
+                throws IOException {
+            generator.writeFieldName(name);
+            generator.writeNumber(value);
+        }
+
+        @Override
+        public void strings(final SerializableString name, final List<String> values)
+                throws IOException {
+            generator.writeFieldName(name);
+            generator.writeStartArray();
+            for (String value : values) {
+                generator.writeString(value);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Puts the fields into an object node.
+     */
+    private record NodeFields(ObjectNode node) implements Fields {
+        @Override
+        public void string(final SerializableString name, final String value) {
+            node.put(name.getValue(), value);
+        }
+
+        @Override
+        public void string(final SerializableString name, final SerializableString value) {
+            node.put(name.getValue(), value.getValue());
+        }
+
+        @Override
+        public void number(final SerializableString name, final int value) {
+            node.put(name.getValue(), value);
+        }
+
+        @Override
+        public void number(final SerializableString name, final double value) {
+            node.put(name.getValue(), value);
+        }
+
+        @Override
+        public void strings(final SerializableString name, final List<String> values) {
+            ArrayNode array = node.putArray(name.getValue());
+            for (String value : values) {
+                array.add(value);
+            }
+        }
+    }
+}
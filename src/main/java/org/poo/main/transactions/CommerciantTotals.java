@@ -0,0 +1,152 @@
+package org.poo.main.transactions;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running totals of the card payments made from one account, per commerciant, for the
+ * commerciants section of spendingsReport. The report lists only the first card payment
+ * of every timestamp, so the later ones are left out here as well.
+ *
+ * Every commerciant keeps the timestamps of its payments in order and a Fenwick tree
+ * over their amounts, so the total of a window is two binary searches and two prefix
+ * sums, O(log n), instead of a pass over the window. A report thus costs O(log n) per
+ * commerciant of the account. The commerciants are kept in a sorted map, in the order
+ * the report lists them. Payments arrive in timestamp order, since commands do, and are
+ * appended in O(log n); one arriving out of order is inserted at its place, which
+ * rebuilds the tree of its commerciant in linear time.
+ */
+final class CommerciantTotals {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Map<String, Series> byCommerciant = new TreeMap<>();
+    private int[] paidTimestamps = new int[INITIAL_CAPACITY]; // In order, without repeats
+    private int paidCount;
+
+    /**
+     * Adds a card payment made from the account.
+     *
+     * @param payment the payment
+     */
+    void add(final TransactionRecord.CardPayment payment) {
+        int timestamp = payment.timestamp();
+        int position = paidCount;
+        if (paidCount > 0 && timestamp <= paidTimestamps[paidCount - 1]) {
+            position = lowerBound(paidTimestamps, paidCount, timestamp);
+            if (paidTimestamps[position] == timestamp) {
+                // An earlier payment has the timestamp, so the report skips this one
+                return;
+            }
+        }
+        if (paidCount == paidTimestamps.length) {
+            paidTimestamps = Arrays.copyOf(paidTimestamps, paidCount * 2);
+        }
+        System.arraycopy(paidTimestamps, position, paidTimestamps, position + 1,
+                paidCount - position);
+        paidTimestamps[position] = timestamp;
+        paidCount++;
+
+        if (payment.commerciant() != null) {
+            byCommerciant.computeIfAbsent(payment.commerciant(), key -> new Series())
+                    .add(timestamp, payment.amount());
+        }
+    }
+
+    /**
+     * Returns the totals of the commerciants paid in a window.
+     *
+     * @param startTimestamp the first timestamp of the window, inclusive
+     * @param endTimestamp   the last timestamp of the window, inclusive
+     * @return the commerciants paid in the window, in sorted order, each with a
+     *         single-element array holding its total in minor units
+     */
+    Map<String, long[]> totals(final int startTimestamp, final int endTimestamp) {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for (Map.Entry<String, Series> entry : byCommerciant.entrySet()) {
+            Series series = entry.getValue();
+            int from = lowerBound(series.timestamps, series.size, startTimestamp);
+            int to = lowerBound(series.timestamps, series.size, endTimestamp + 1L);
+            if (from < to) {
+                totals.put(entry.getKey(), new long[] {series.sum(to) - series.sum(from)});
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Returns the number of the first values, of a sorted array, below the key.
+     */
+    private static int lowerBound(final int[] values, final int size, final long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The payments to one commerciant, in timestamp order, with a Fenwick tree over
+     * their amounts. tree[i] holds the sum of the amounts of the payments (i - (i & -i))
+     * to i - 1, so the first i payments are summed over O(log i) entries.
+     */
+    private static final class Series {
+        private int[] timestamps = new int[INITIAL_CAPACITY];
+        private long[] tree = new long[INITIAL_CAPACITY + 1]; // tree[0] is unused
+        private int size;
+
+        void add(final int timestamp, final long amount) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                tree = Arrays.copyOf(tree, size * 2 + 1);
+            }
+
+            if (size == 0 || timestamps[size - 1] <= timestamp) {
+                // The new node covers the payments (i - (i & -i)) to i - 1
+                timestamps[size] = timestamp;
+                int node = size + 1;
+                tree[node] = amount + sum(size) - sum(node - (node & -node));
+                size++;
+                return;
+            }
+
+            // Out of order: unfold the tree into the amounts, insert and fold it again
+            for (int node = size; node > 0; node--) {
+                int parent = node + (node & -node);
+                if (parent <= size) {
+                    tree[parent] -= tree[node];
+                }
+            }
+            int position = lowerBound(timestamps, size, timestamp + 1L);
+            System.arraycopy(timestamps, position, timestamps, position + 1, size - position);
+            System.arraycopy(tree, position + 1, tree, position + 2, size - position);
+            timestamps[position] = timestamp;
+            tree[position + 1] = amount;
+            size++;
+            for (int node = 1; node <= size; node++) {
+                int parent = node + (node & -node);
+                if (parent <= size) {
+                    tree[parent] += tree[node];
+                }
+            }
+        }
+
+        /**
+         * Returns the total of the first count payments.
+         */
+        long sum(final int count) {
+            long total = 0;
+            for (int node = count; node > 0; node -= node & -node) {
+                total += tree[node];
+            }
+            return total;
+        }
+    }
+}
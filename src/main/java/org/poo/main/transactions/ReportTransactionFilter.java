@@ -1,5 +1,21 @@
 package org.poo.main.transactions;
 
+import org.poo.main.transactions.TransactionRecord.AccountCreated;
+import org.poo.main.transactions.TransactionRecord.CardCreated;
+import org.poo.main.transactions.TransactionRecord.CardDestroyed;
+import org.poo.main.transactions.TransactionRecord.CardFrozen;
+import org.poo.main.transactions.TransactionRecord.CardPayment;
+import org.poo.main.transactions.TransactionRecord.DeleteAccountError;
+import org.poo.main.transactions.TransactionRecord.InsufficientFunds;
+import org.poo.main.transactions.TransactionRecord.InterestRateChange;
+import org.poo.main.transactions.TransactionRecord.MinimumBalanceWarning;
+import org.poo.main.transactions.TransactionRecord.MoneyReceived;
+import org.poo.main.transactions.TransactionRecord.MoneySent;
+import org.poo.main.transactions.TransactionRecord.SplitPayment;
+import org.poo.main.transactions.TransactionRecord.SplitPaymentError;
+
+import java.util.List;
+
 /**
  * Filters transactions based on the provided IBAN. Matches transactions where the IBAN is
  * involved as the sender, receiver, or part of the associated accounts.
@@ -15,14 +31,26 @@ public class ReportTransactionFilter implements TransactionFilter {
      */
     @Override
     public boolean filter(final Transaction transaction, final String iban) {
-        if (transaction.getAccountIBAN() == null) {
-            return (transaction.getSenderIBAN() != null
-                    && transaction.getSenderIBAN().equals(iban))
-                    || (transaction.getReceiverIBAN() != null
-                    && transaction.getReceiverIBAN().equals(iban))
-                    || (transaction.getInvolvedAccounts() != null
-                    && transaction.getInvolvedAccounts().contains(iban));
-        }
-        return transaction.getAccountIBAN().equals(iban);
+        return switch (transaction) {
+            case AccountCreated record -> iban.equals(record.accountIBAN());
+            case CardCreated record -> iban.equals(record.accountIBAN());
+            case MoneySent record ->
+                    iban.equals(record.senderIBAN()) || iban.equals(record.receiverIBAN());
+            case MoneyReceived record ->
+                    iban.equals(record.senderIBAN()) || iban.equals(record.receiverIBAN());
+            case CardPayment record -> iban.equals(record.accountIBAN());
+            case InsufficientFunds record -> iban.equals(record.accountIBAN());
+            case CardDestroyed record -> iban.equals(record.accountIBAN());
+            case MinimumBalanceWarning record -> iban.equals(record.accountIBAN());
+            case CardFrozen record -> iban.equals(record.accountIBAN());
+            case SplitPayment record -> contains(record.involvedAccounts(), iban);
+            case SplitPaymentError record -> contains(record.involvedAccounts(), iban);
+            case DeleteAccountError record -> false;
+            case InterestRateChange record -> false;
+        };
+    }
+
+    private static boolean contains(final List<String> accounts, final String iban) {
+        return accounts != null && accounts.contains(iban);
     }
 }
@@ -6,7 +6,7 @@ package org.poo.main.transactions;
 public class SpendingsTransactionFilter implements TransactionFilter {
 
     /**
-     * Filters transactions based on the description "Card payment" and matching IBAN.
+     * Filters card payment records made from the matching IBAN.
      *
      * @param transaction The transaction to be filtered. Must not be null.
      * @param iban        The IBAN to match. Must not be null.
@@ -15,7 +15,7 @@ public class SpendingsTransactionFilter implements TransactionFilter {
      */
     @Override
     public boolean filter(final Transaction transaction, final String iban) {
-        return "Card payment".equals(transaction.getDescription())
-                && iban.equals(transaction.getAccountIBAN());
+        return transaction instanceof TransactionRecord.CardPayment payment
+                && iban.equals(payment.accountIBAN());
     }
 }
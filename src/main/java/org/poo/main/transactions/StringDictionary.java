@@ -0,0 +1,66 @@
+package org.poo.main.transactions;
+
+import org.poo.main.journal.SnapshotInput;
+import org.poo.main.journal.SnapshotOutput;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding the string columns of a transaction store.
+ * Every distinct string is stored once and referred to by a dense int id; null is -1.
+ */
+final class StringDictionary {
+    static final int NULL_ID = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Returns the id of a string, adding it to the dictionary if needed.
+     */
+    int encode(final String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the string with the given id.
+     */
+    String decode(final int id) {
+        if (id == NULL_ID) {
+            return null;
+        }
+        return values.get(id);
+    }
+
+    /**
+     * Writes the strings to a snapshot, in id order.
+     */
+    void writeTo(final SnapshotOutput output) {
+        output.putInt(values.size());
+        for (String value : values) {
+            output.putString(value);
+        }
+    }
+
+    /**
+     * Adds the strings of a snapshot, which keep their ids in an empty dictionary.
+     */
+    void readFrom(final SnapshotInput input) {
+        int count = input.getInt();
+        for (int i = 0; i < count; i++) {
+            encode(input.getString());
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.poo.main.transactions;
 
+import org.poo.main.exchange_rate.Currency;
+import org.poo.main.exchange_rate.Money;
+
 import java.util.List;
 
 /**
@@ -17,16 +20,9 @@ public final class TransactionFactory {
      * @param accountIBAN The IBAN of the account.
      * @return The created transaction.
      */
-    public static Transaction createAccountTransaction(
+    public static TransactionRecord.AccountCreated createAccountTransaction(
             final int timestamp, final String accountIBAN) {
-        return new Transaction(
-                timestamp,
-                "New account created",
-                null, null, null, null,
-                null, null, null, accountIBAN,
-                null, null, null,
-                null
-        );
+        return new TransactionRecord.AccountCreated(timestamp, accountIBAN);
     }
 
     /**
@@ -38,17 +34,10 @@ public final class TransactionFactory {
      * @param accountIBAN The IBAN of the account.
      * @return The created transaction.
      */
-    public static Transaction createCardTransaction(
+    public static TransactionRecord.CardCreated createCardTransaction(
             final int timestamp, final String cardNumber,
             final String email, final String accountIBAN) {
-        return new Transaction(
-                timestamp,
-                "New card created",
-                null, null, null, null,
-                null, cardNumber, email,
-                accountIBAN, null, null, null,
-                null
-        );
+        return new TransactionRecord.CardCreated(timestamp, cardNumber, email, accountIBAN);
     }
 
     /**
@@ -57,23 +46,17 @@ public final class TransactionFactory {
      * @param timestamp   The timestamp of the transaction.
      * @param senderIBAN  The IBAN of the sender account.
      * @param receiverIBAN The IBAN of the receiver account.
-     * @param amount      The amount of money sent.
+     * @param amount      The amount of money sent, in minor units.
      * @param currency    The currency of the transaction.
+     * @param description A description of the transaction.
      * @return The created transaction.
      */
-    public static Transaction createSentMoneyTransaction(
+    public static TransactionRecord.MoneySent createSentMoneyTransaction(
             final int timestamp, final String senderIBAN,
-            final String receiverIBAN, final double amount,
-            final String currency) {
-        return new Transaction(
-                timestamp,
-                "Money sent",
-                senderIBAN, receiverIBAN,
-                amount, currency,
-                "sent", null, null,
-                null, null, null, null,
-                null
-        );
+            final String receiverIBAN, final long amount,
+            final Currency currency, final String description) {
+        return new TransactionRecord.MoneySent(timestamp, description, senderIBAN,
+                receiverIBAN, amount, currency);
     }
 
     /**
@@ -82,30 +65,18 @@ public final class TransactionFactory {
      * @param timestamp    The timestamp of the transaction.
      * @param senderIBAN   The IBAN of the sender.
      * @param receiverIBAN The IBAN of the receiver.
-     * @param amount       The amount of money received.
-     * @param exchangeRate The exchange rate used for the conversion.
+     * @param amount       The amount of money received, already converted to the
+     *                     receiver's currency, in minor units.
      * @param currency     The currency of the transaction.
      * @param description  A description of the transaction.
      * @return The created transaction.
      */
-    public static Transaction createReceivedMoneyTransaction(
+    public static TransactionRecord.MoneyReceived createReceivedMoneyTransaction(
             final int timestamp, final String senderIBAN,
-            final String receiverIBAN, final double amount,
-            final double exchangeRate, final String currency,
-            final String description) {
-
-        // Calculate the final amount using the exchange rate
-        double finalAmount = amount * exchangeRate;
-
-        return new Transaction(
-                timestamp,
-                description,
-                senderIBAN, receiverIBAN,
-                finalAmount, currency,
-                "received", null, null,
-                null, null, null, null,
-                null
-        );
+            final String receiverIBAN, final long amount,
+            final Currency currency, final String description) {
+        return new TransactionRecord.MoneyReceived(timestamp, description, senderIBAN,
+                receiverIBAN, amount, currency);
     }
 
     /**
@@ -113,22 +84,18 @@ public final class TransactionFactory {
      *
      * @param timestamp   The timestamp of the transaction.
      * @param cardNumber  The card number used for the payment.
-     * @param amount      The amount paid.
+     * @param amount      The amount paid, in minor units.
+     * @param currency    The currency of the paying account.
      * @param commerciant The merchant involved in the transaction.
      * @param accountIBAN The IBAN of the account.
      * @return The created transaction.
      */
-    public static Transaction createOnlinePaymentTransaction(
+    public static TransactionRecord.CardPayment createOnlinePaymentTransaction(
             final int timestamp, final String cardNumber,
-            final double amount, final String commerciant, final String accountIBAN) {
-        return new Transaction(
-                timestamp,
-                "Card payment",
-                null, null, amount,
-                null, null, null, null,
-                accountIBAN, commerciant, null, null,
-                null
-        );
+            final long amount, final Currency currency, final String commerciant,
+            final String accountIBAN) {
+        return new TransactionRecord.CardPayment(timestamp, amount, currency, commerciant,
+                accountIBAN);
     }
 
     /**
@@ -138,16 +105,9 @@ public final class TransactionFactory {
      * @param accountIBAN The IBAN of the account.
      * @return The created transaction.
      */
-    public static Transaction createInsufficientFundsTransaction(
+    public static TransactionRecord.InsufficientFunds createInsufficientFundsTransaction(
             final int timestamp, final String accountIBAN) {
-        return new Transaction(
-                timestamp,
-                "Insufficient funds",
-                null, null, null, null,
-                null, null, null, accountIBAN,
-                null, null, null,
-                null
-        );
+        return new TransactionRecord.InsufficientFunds(timestamp, accountIBAN);
     }
 
     /**
@@ -159,17 +119,10 @@ public final class TransactionFactory {
      * @param email       The email associated with the card.
      * @return The created transaction.
      */
-    public static Transaction createDeletedCardTransaction(
+    public static TransactionRecord.CardDestroyed createDeletedCardTransaction(
             final int timestamp, final String accountIBAN,
             final String cardNumber, final String email) {
-        return new Transaction(
-                timestamp,
-                "The card has been destroyed",
-                null, null, null, null,
-                null, cardNumber, email,
-                accountIBAN, null, null, null,
-                null
-        );
+        return new TransactionRecord.CardDestroyed(timestamp, cardNumber, email, accountIBAN);
     }
 
     /**
@@ -179,17 +132,9 @@ public final class TransactionFactory {
      * @param accountIBAN The IBAN of the account.
      * @return The created transaction.
      */
-    public static Transaction createWarningTransaction(
+    public static TransactionRecord.MinimumBalanceWarning createWarningTransaction(
             final int timestamp, final String accountIBAN) {
-        return new Transaction(
-                timestamp,
-                "You have reached the minimum amount "
-                        + "of funds, the card will be frozen",
-                null, null, null, null,
-                null, null, null, accountIBAN,
-                null, null, null,
-                null
-        );
+        return new TransactionRecord.MinimumBalanceWarning(timestamp, accountIBAN);
     }
 
     /**
@@ -199,69 +144,52 @@ public final class TransactionFactory {
      * @param accountIBAN The IBAN of the account.
      * @return The created transaction.
      */
-    public static Transaction createCardFrozenErrorTransaction(
+    public static TransactionRecord.CardFrozen createCardFrozenErrorTransaction(
             final int timestamp, final String accountIBAN) {
-        return new Transaction(
-                timestamp,
-                "The card is frozen",
-                null, null, null, null,
-                null, null, null, accountIBAN,
-                null, null, null,
-                null
-        );
+        return new TransactionRecord.CardFrozen(timestamp, accountIBAN);
     }
 
     /**
      * Creates a successful split payment transaction.
      *
      * @param timestamp   The timestamp of the transaction.
-     * @param amount      The total amount of the payment.
-     * @param splitAmount The amount each recipient receives.
+     * @param amount      The total amount of the payment, in minor units.
+     * @param splitAmount The amount each recipient receives, in minor units.
      * @param currency    The currency of the transaction.
      * @param accounts    A list of IBANs involved in the transaction.
      * @return The created transaction.
      */
-    public static Transaction createSuccessSplitTransaction(
-            final int timestamp, final double amount, final double splitAmount,
-            final String currency, final List<String> accounts) {
-        String formattedAmount = String.format("%.2f", amount);
-        return new Transaction(
-                timestamp,
+    public static TransactionRecord.SplitPayment createSuccessSplitTransaction(
+            final int timestamp, final long amount, final long splitAmount,
+            final Currency currency, final List<String> accounts) {
+        String formattedAmount = String.format("%.2f", Money.toAmount(amount, currency));
+        return new TransactionRecord.SplitPayment(timestamp,
                 "Split payment of " + formattedAmount + " " + currency,
-                null, null, splitAmount, currency,
-                null, null, null, null,
-                null, null, accounts,
-                null
-        );
+                splitAmount, currency, accounts);
     }
 
     /**
      * Creates an error transaction for a split payment.
      *
-     * @param totalAmount The total amount of the payment.
+     * @param totalAmount The total amount of the payment, in minor units.
      * @param timestamp   The timestamp of the transaction.
-     * @param splitAmount The amount each recipient receives.
+     * @param splitAmount The amount each recipient receives, in minor units.
      * @param currency    The currency of the transaction.
      * @param cheapIban   The IBAN with insufficient funds.
      * @param accounts    A list of IBANs involved in the transaction.
      * @return The created transaction.
      */
-    public static Transaction createSplitErrorTransaction(
-            final double totalAmount, final int timestamp,
-            final double splitAmount, final String currency,
+    public static TransactionRecord.SplitPaymentError createSplitErrorTransaction(
+            final long totalAmount, final int timestamp,
+            final long splitAmount, final Currency currency,
             final String cheapIban, final List<String> accounts) {
         String description = "Split payment of "
-                + String.format("%.2f", splitAmount) + " " + currency;
+                + String.format("%.2f", Money.toAmount(splitAmount, currency)) + " " + currency;
         String errorMessage = "Account " + cheapIban
                 + " has insufficient funds for a split payment.";
 
-        return new Transaction(
-                timestamp,
-                description,
-                null, null, totalAmount, currency,
-                null, null, null, null,
-                null, null, accounts, errorMessage
-        );
+        return new TransactionRecord.SplitPaymentError(timestamp, description,
+                totalAmount, currency, accounts, errorMessage);
     }
 
 
@@ -271,16 +199,9 @@ public final class TransactionFactory {
      * @param timestamp The timestamp of the transaction.
      * @return The created transaction.
      */
-    public static Transaction createDeleteAccountErrorTransaction(
+    public static TransactionRecord.DeleteAccountError createDeleteAccountErrorTransaction(
             final int timestamp) {
-        return new Transaction(
-                timestamp,
-                "Account couldn't be deleted - there are funds remaining",
-                null, null, null, null,
-                null, null, null, null,
-                null, null, null,
-                null
-        );
+        return new TransactionRecord.DeleteAccountError(timestamp);
     }
 
     /**
@@ -290,15 +211,9 @@ public final class TransactionFactory {
      * @param rate      The new interest rate.
      * @return The created transaction.
      */
-    public static Transaction createInterestRateChangeTransaction(
+    public static TransactionRecord.InterestRateChange createInterestRateChangeTransaction(
             final int timestamp, final double rate) {
-        return new Transaction(
-                timestamp,
-                "Interest rate of the account changed to " + rate,
-                null, null, null, null,
-                null, null, null, null,
-                null, null, null,
-                null
-        );
+        return new TransactionRecord.InterestRateChange(timestamp,
+                "Interest rate of the account changed to " + rate);
     }
 }
@@ -0,0 +1,241 @@
+package org.poo.main.transactions;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Per-IBAN index over a user's transaction store, kept sorted by timestamp.
+ * A row is indexed under every IBAN the report filter can match it on,
+ * so a report only binary-searches its window and touches the entries inside it.
+ * The card payments of every IBAN are also summed per commerciant as they are indexed,
+ * for the totals of spendingsReport.
+ */
+public final class TransactionIndex {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final TransactionStore store;
+    private final Map<String, Rows> byIban = new HashMap<>();
+    private final Map<String, CommerciantTotals> totalsByIban = new HashMap<>();
+
+    public TransactionIndex(final TransactionStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Indexes a stored transaction under the IBANs it refers to.
+     *
+     * @param row         the row of the transaction in the store
+     * @param transaction the transaction stored on the row
+     */
+    public void add(final int row, final Transaction transaction) {
+        for (String iban : TransactionRecord.ibansOf(transaction)) {
+            insert(iban, row);
+        }
+        if (transaction instanceof TransactionRecord.CardPayment payment
+                && payment.accountIBAN() != null) {
+            totalsByIban.computeIfAbsent(payment.accountIBAN(),
+                    key -> new CommerciantTotals()).add(payment);
+        }
+    }
+
+    /**
+     * Returns the transactions of an IBAN with timestamps in the given window.
+     *
+     * @param iban           the IBAN of the account
+     * @param startTimestamp the first timestamp of the window, inclusive
+     * @param endTimestamp   the last timestamp of the window, inclusive
+     * @return a read-only view of the matching transactions, in timestamp order
+     */
+    public List<Transaction> range(final String iban, final int startTimestamp,
+                                   final int endTimestamp) {
+        Rows rows = byIban.get(iban);
+        if (rows == null || startTimestamp > endTimestamp) {
+            return Collections.emptyList();
+        }
+
+        int from = rows.lowerBound(startTimestamp);
+        int to = rows.lowerBound(endTimestamp + 1L);
+        return new RangeView(rows, from, to);
+    }
+
+    /**
+     * Returns all the transactions of an IBAN.
+     *
+     * @param iban the IBAN of the account
+     * @return a read-only view of the transactions, in timestamp order
+     */
+    public List<Transaction> transactions(final String iban) {
+        Rows rows = byIban.get(iban);
+        if (rows == null) {
+            return Collections.emptyList();
+        }
+        return new RangeView(rows, 0, rows.size);
+    }
+
+    /**
+     * Returns the position, in the view returned by transactions, of the first
+     * transaction of an IBAN with a timestamp above the given one.
+     *
+     * @param iban      the IBAN of the account
+     * @param timestamp the timestamp
+     * @return the position, or the number of the IBAN's transactions if there is none
+     */
+    public int firstAfter(final String iban, final int timestamp) {
+        Rows rows = byIban.get(iban);
+        if (rows == null) {
+            return 0;
+        }
+        return rows.lowerBound(timestamp + 1L);
+    }
+
+    /**
+     * Returns the position, in the view returned by transactions, of the first
+     * transaction of an IBAN after the one a paging cursor was taken at. The rows of an
+     * IBAN are ordered by timestamp and then by row, so the position is found by that
+     * key and stays right when a transaction is inserted before the cursor.
+     *
+     * @param iban   the IBAN of the account
+     * @param cursor the cursor, as returned by cursorAt
+     * @return the position, or the number of the IBAN's transactions if there is none
+     */
+    public int positionAfter(final String iban, final long cursor) {
+        Rows rows = byIban.get(iban);
+        if (rows == null) {
+            return 0;
+        }
+        return rows.upperBound(TransactionStore.cursorTimestamp(cursor),
+                TransactionStore.cursorRow(cursor));
+    }
+
+    /**
+     * Returns the paging cursor of a transaction of an IBAN.
+     *
+     * @param iban     the IBAN of the account
+     * @param position the position of the transaction in the view returned by transactions
+     * @return the cursor, as built by TransactionStore.cursorOf
+     */
+    public long cursorAt(final String iban, final int position) {
+        return store.cursorOf(byIban.get(iban).values[position]);
+    }
+
+    /**
+     * Returns the commerciant totals of the card payments made from an IBAN in a window,
+     * counting the payments the way spendingsReport lists them.
+     *
+     * @param iban           the IBAN of the account
+     * @param startTimestamp the first timestamp of the window, inclusive
+     * @param endTimestamp   the last timestamp of the window, inclusive
+     * @return the commerciants paid in the window, in sorted order, each with a
+     *         single-element array holding its total in minor units
+     */
+    public Map<String, long[]> commerciantTotals(final String iban, final int startTimestamp,
+                                                 final int endTimestamp) {
+        CommerciantTotals totals = totalsByIban.get(iban);
+        if (totals == null) {
+            return Collections.emptyMap();
+        }
+        return totals.totals(startTimestamp, endTimestamp);
+    }
+
+    private void insert(final String iban, final int row) {
+        byIban.computeIfAbsent(iban, key -> new Rows()).insert(row);
+    }
+
+    /**
+     * Growable list of store rows, ordered by the rows' timestamps.
+     */
+    private final class Rows {
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        void insert(final int row) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            // Commands arrive in timestamp order, so this is almost always an append. A row
+            // inserted out of order goes after the rows of its timestamp, which are the
+            // earlier rows, so the rows stay ordered by timestamp and then by row
+            int timestamp = store.getTimestamp(row);
+            if (size == 0 || store.getTimestamp(values[size - 1]) <= timestamp) {
+                values[size++] = row;
+                return;
+            }
+            int position = lowerBound(timestamp + 1L);
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = row;
+            size++;
+        }
+
+        /**
+         * Returns the position of the first row after the given one, by timestamp and
+         * then by row.
+         */
+        int upperBound(final int timestamp, final int row) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int value = values[middle];
+                int valueTimestamp = store.getTimestamp(value);
+                if (valueTimestamp < timestamp
+                        || valueTimestamp == timestamp && value <= row) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the position of the first row with a timestamp of at least the key.
+         */
+        int lowerBound(final long key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (store.getTimestamp(values[middle]) < key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Read-only view of a slice of an IBAN's rows.
+     */
+    private final class RangeView extends AbstractList<Transaction> implements RandomAccess {
+        private final Rows rows;
+        private final int from;
+        private final int to;
+
+        RangeView(final Rows rows, final int from, final int to) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Transaction get(final int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return store.get(rows.values[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.poo.main.transactions;
+
+/**
+ * The kinds of transactions recorded by the banking system.
+ * The ordinal is used as the type code in the columnar transaction store.
+ */
+public enum TransactionKind {
+    ACCOUNT_CREATED,
+    CARD_CREATED,
+    MONEY_SENT,
+    MONEY_RECEIVED,
+    CARD_PAYMENT,
+    INSUFFICIENT_FUNDS,
+    CARD_DESTROYED,
+    MINIMUM_BALANCE_WARNING,
+    CARD_FROZEN,
+    SPLIT_PAYMENT,
+    SPLIT_PAYMENT_ERROR,
+    DELETE_ACCOUNT_ERROR,
+    INTEREST_RATE_CHANGE;
+
+    private static final TransactionKind[] VALUES = values();
+
+    /**
+     * Returns the kind with the given type code.
+     *
+     * @param code the type code, as returned by ordinal()
+     * @return the transaction kind
+     */
+    public static TransactionKind fromCode(final int code) {
+        return VALUES[code];
+    }
+}
@@ -0,0 +1,414 @@
+package org.poo.main.transactions;
+
+import org.poo.main.exchange_rate.Currency;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The transactions of the banking system, one record per kind holding only the fields
+ * that kind uses. The hierarchy is sealed, so the serializer and any other code switching
+ * over the record type is checked to handle every kind.
+ */
+public sealed interface TransactionRecord extends Transaction {
+
+    /**
+     * Returns the IBANs a transaction is reported under: the IBAN of its account or, for
+     * the kinds without one, the IBANs of the transfer or of the split.
+     *
+     * @param transaction the transaction
+     * @return the IBANs, without duplicates
+     */
+    static List<String> ibansOf(final Transaction transaction) {
+        return switch (transaction) {
+            case AccountCreated record -> ibansOf(record.accountIBAN());
+            case CardCreated record -> ibansOf(record.accountIBAN());
+            case MoneySent record -> ibansOf(record.senderIBAN(), record.receiverIBAN());
+            case MoneyReceived record -> ibansOf(record.senderIBAN(), record.receiverIBAN());
+            case CardPayment record -> ibansOf(record.accountIBAN());
+            case InsufficientFunds record -> ibansOf(record.accountIBAN());
+            case CardDestroyed record -> ibansOf(record.accountIBAN());
+            case MinimumBalanceWarning record -> ibansOf(record.accountIBAN());
+            case CardFrozen record -> ibansOf(record.accountIBAN());
+            case SplitPayment record -> ibansOf(record.involvedAccounts());
+            case SplitPaymentError record -> ibansOf(record.involvedAccounts());
+            case DeleteAccountError record -> List.of();
+            case InterestRateChange record -> List.of();
+        };
+    }
+
+    private static List<String> ibansOf(final String account) {
+        return account == null ? List.of() : List.of(account);
+    }
+
+    private static List<String> ibansOf(final String sender, final String receiver) {
+        if (sender == null || sender.equals(receiver)) {
+            return receiver == null ? List.of() : List.of(receiver);
+        }
+        return receiver == null ? List.of(sender) : List.of(sender, receiver);
+    }
+
+    private static List<String> ibansOf(final List<String> accounts) {
+        if (accounts == null) {
+            return List.of();
+        }
+        return accounts.stream().filter(Objects::nonNull).distinct().toList();
+    }
+
+    /**
+     * A new account was created.
+     *
+     * @param timestamp   the timestamp of the transaction
+     * @param accountIBAN the IBAN of the new account
+     */
+    record AccountCreated(int timestamp, String accountIBAN) implements TransactionRecord {
+        public static final String DESCRIPTION = "New account created";
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.ACCOUNT_CREATED;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return DESCRIPTION;
+        }
+    }
+
+    /**
+     * A new card was created.
+     *
+     * @param timestamp   the timestamp of the transaction
+     * @param cardNumber  the number of the new card
+     * @param cardHolder  the email of the card holder
+     * @param accountIBAN the IBAN of the account of the card
+     */
+    record CardCreated(int timestamp, String cardNumber, String cardHolder,
+                       String accountIBAN) implements TransactionRecord {
+        public static final String DESCRIPTION = "New card created";
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.CARD_CREATED;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return DESCRIPTION;
+        }
+    }
+
+    /**
+     * Money was sent to another account.
+     *
+     * @param timestamp    the timestamp of the transaction
+     * @param description  the description given by the sender
+     * @param senderIBAN   the IBAN of the sender
+     * @param receiverIBAN the IBAN of the receiver
+     * @param amount       the amount sent, in minor units
+     * @param currency     the currency of the sender's account
+     */
+    record MoneySent(int timestamp, String description, String senderIBAN,
+                     String receiverIBAN, long amount, Currency currency)
+            implements TransactionRecord {
+        public static final String TRANSFER_TYPE = "sent";
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.MONEY_SENT;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * Money was received from another account.
+     *
+     * @param timestamp    the timestamp of the transaction
+     * @param description  the description given by the sender
+     * @param senderIBAN   the IBAN of the sender
+     * @param receiverIBAN the IBAN of the receiver
+     * @param amount       the amount received, in minor units of the receiver's currency
+     * @param currency     the currency of the receiver's account
+     */
+    record MoneyReceived(int timestamp, String description, String senderIBAN,
+                         String receiverIBAN, long amount, Currency currency)
+            implements TransactionRecord {
+        public static final String TRANSFER_TYPE = "received";
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.MONEY_RECEIVED;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * An online payment was made with a card.
+     *
+     * @param timestamp   the timestamp of the transaction
+     * @param amount      the amount paid, in minor units
+     * @param currency    the currency of the paying account
+     * @param commerciant the merchant that was paid
+     * @param accountIBAN the IBAN of the paying account
+     */
+    record CardPayment(int timestamp, long amount, Currency currency, String commerciant,
+                       String accountIBAN) implements TransactionRecord {
+        public static final String DESCRIPTION = "Card payment";
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.CARD_PAYMENT;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return DESCRIPTION;
+        }
+    }
+
+    /**
+     * A payment failed for lack of funds.
+     *
+     * @param timestamp   the timestamp of the transaction
+     * @param accountIBAN the IBAN of the account
+     */
+    record InsufficientFunds(int timestamp, String accountIBAN) implements TransactionRecord {
+        public static final String DESCRIPTION = "Insufficient funds";
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.INSUFFICIENT_FUNDS;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return DESCRIPTION;
+        }
+    }
+
+    /**
+     * A card was destroyed.
+     *
+     * @param timestamp   the timestamp of the transaction
+     * @param cardNumber  the number of the destroyed card
+     * @param cardHolder  the email of the card holder
+     * @param accountIBAN the IBAN of the account of the card
+     */
+    record CardDestroyed(int timestamp, String cardNumber, String cardHolder,
+                         String accountIBAN) implements TransactionRecord {
+        public static final String DESCRIPTION = "The card has been destroyed";
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.CARD_DESTROYED;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return DESCRIPTION;
+        }
+    }
+
+    /**
+     * An account reached its minimum balance, so its card gets frozen.
+     *
+     * @param timestamp   the timestamp of the transaction
+     * @param accountIBAN the IBAN of the account
+     */
+    record MinimumBalanceWarning(int timestamp, String accountIBAN)
+            implements TransactionRecord {
+        public static final String DESCRIPTION =
+                "You have reached the minimum amount of funds, the card will be frozen";
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.MINIMUM_BALANCE_WARNING;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return DESCRIPTION;
+        }
+    }
+
+    /**
+     * A payment was refused because the card is frozen.
+     *
+     * @param timestamp   the timestamp of the transaction
+     * @param accountIBAN the IBAN of the account
+     */
+    record CardFrozen(int timestamp, String accountIBAN) implements TransactionRecord {
+        public static final String DESCRIPTION = "The card is frozen";
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.CARD_FROZEN;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return DESCRIPTION;
+        }
+    }
+
+    /**
+     * A payment was split between several accounts.
+     *
+     * @param timestamp        the timestamp of the transaction
+     * @param description      the description, naming the total amount
+     * @param amount           the share of every account, in minor units
+     * @param currency         the currency of the payment
+     * @param involvedAccounts the IBANs of the accounts
+     */
+    record SplitPayment(int timestamp, String description, long amount, Currency currency,
+                        List<String> involvedAccounts) implements TransactionRecord {
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.SPLIT_PAYMENT;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * A split payment failed because an account lacked the funds for its share.
+     *
+     * @param timestamp        the timestamp of the transaction
+     * @param description      the description, naming the share of every account
+     * @param amount           the total amount of the payment, in minor units
+     * @param currency         the currency of the payment
+     * @param involvedAccounts the IBANs of the accounts
+     * @param error            the error, naming the account without funds
+     */
+    record SplitPaymentError(int timestamp, String description, long amount,
+                             Currency currency, List<String> involvedAccounts, String error)
+            implements TransactionRecord {
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.SPLIT_PAYMENT_ERROR;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * An account could not be deleted because it still had funds.
+     *
+     * @param timestamp the timestamp of the transaction
+     */
+    record DeleteAccountError(int timestamp) implements TransactionRecord {
+        public static final String DESCRIPTION =
+                "Account couldn't be deleted - there are funds remaining";
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.DELETE_ACCOUNT_ERROR;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return DESCRIPTION;
+        }
+    }
+
+    /**
+     * The interest rate of a savings account changed.
+     *
+     * @param timestamp   the timestamp of the transaction
+     * @param description the description, naming the new rate
+     */
+    record InterestRateChange(int timestamp, String description)
+            implements TransactionRecord {
+
+        @Override
+        public TransactionKind getKind() {
+            return TransactionKind.INTEREST_RATE_CHANGE;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+    }
+}
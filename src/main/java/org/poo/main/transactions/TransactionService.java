@@ -1,8 +1,9 @@
 package org.poo.main.transactions;
 
-import org.poo.main.tools.Tools;
 import org.poo.main.accounts.Account;
+import org.poo.main.bank.BankRegistry;
 import org.poo.main.cards.Card;
+import org.poo.main.exchange_rate.Currency;
 import org.poo.main.user.User;
 import java.util.List;
 
@@ -11,15 +12,15 @@ import java.util.List;
  * and adding them to the user's list of transactions in the banking system.
  */
 public class TransactionService {
-    private List<User> users;
+    private final BankRegistry registry;
 
     /**
-     * Constructs a new TransactionService with a list of users.
+     * Constructs a new TransactionService over the bank's registry.
      *
-     * @param users the list of users in the banking system.
+     * @param registry the registry indexing the users of the banking system.
      */
-    public TransactionService(final List<User> users) {
-        this.users = users;
+    public TransactionService(final BankRegistry registry) {
+        this.registry = registry;
     }
 
     /**
@@ -33,7 +34,7 @@ public class TransactionService {
                                                                 final User user) {
         Transaction transaction =
                 TransactionFactory.createAccountTransaction(timestamp, account.getIban());
-        user.addTransaction(transaction);
+        record(user, transaction);
     }
 
     /**
@@ -46,7 +47,7 @@ public class TransactionService {
     public void addDeleteAccountErrorTransaction(final int timestamp, final User user) {
         Transaction transaction =
                 TransactionFactory.createDeleteAccountErrorTransaction(timestamp);
-        user.addTransaction(transaction);
+        record(user, transaction);
     }
 
     /**
@@ -62,7 +63,7 @@ public class TransactionService {
         Transaction transaction =
                 TransactionFactory.createCardTransaction(timestamp, card.getCardNumber(),
                 user.getEmail(), account.getIban());
-        user.addTransaction(transaction);
+        record(user, transaction);
     }
 
     /**
@@ -70,18 +71,19 @@ public class TransactionService {
      *
      * @param timestamp the timestamp of the transaction.
      * @param card the card used for the payment.
-     * @param amount the amount paid.
+     * @param account the account from which the payment is made.
+     * @param amount the amount paid, in minor units of the account's currency.
      * @param commerciant the name of the merchant receiving the payment.
      * @param user the user who made the payment.
-     * @param iban the IBAN of the account from which the payment is made.
      */
     public void addOnlinePaymentTransaction(final int timestamp, final Card card,
-                                            final double amount, final String commerciant,
-                                            final User user, final String iban) {
+                                            final Account account, final long amount,
+                                            final String commerciant, final User user) {
         Transaction transaction =
                 TransactionFactory.createOnlinePaymentTransaction(timestamp,
-                        card.getCardNumber(), amount, commerciant, iban);
-        user.addTransaction(transaction);
+                        card.getCardNumber(), amount, account.getCurrencyRef(), commerciant,
+                        account.getIban());
+        record(user, transaction);
     }
 
     /**
@@ -91,21 +93,20 @@ public class TransactionService {
      * @param timestamp the timestamp of the transaction.
      * @param sender the account from which the money is being sent.
      * @param receiver the account receiving the money.
-     * @param amount the amount of money being sent.
+     * @param amount the amount of money being sent, in minor units.
      * @param currency the currency of the transaction.
      * @param description a description of the transaction.
      */
     public void addSendMoneyTransaction(final int timestamp, final Account sender,
-                                        final Account receiver, final double amount,
-                                        final String currency, final String description) {
-        User senderUser = Tools.findUserByEmail(sender.getOwnerEmail(), users);
+                                        final Account receiver, final long amount,
+                                        final Currency currency, final String description) {
+        User senderUser = registry.findUserByEmail(sender.getOwnerEmail());
 
         Transaction sentTransaction =
                 TransactionFactory.createSentMoneyTransaction(timestamp, sender.getIban(),
-                receiver.getIban(), amount, currency);
+                receiver.getIban(), amount, currency, description);
 
-        sentTransaction.setDescription(description);
-        senderUser.addTransaction(sentTransaction);
+        record(senderUser, sentTransaction);
     }
 
     /**
@@ -114,22 +115,20 @@ public class TransactionService {
      * @param timestamp the timestamp of the transaction.
      * @param sender the account sending the money.
      * @param receiver the account receiving the money.
-     * @param amount the amount of money received.
-     * @param rate the exchange rate applied to the transaction (if applicable).
+     * @param amount the amount of money received, in minor units of the receiver's currency.
      * @param currency the currency of the transaction.
      * @param description a description of the transaction.
      */
     public void addReceivedMoneyTransaction(final int timestamp, final Account sender,
-                                            final Account receiver, final double amount,
-                                            final double rate, final String currency,
-                                            final String description) {
-        User receiverUser = Tools.findUserByEmail(receiver.getOwnerEmail(), users);
+                                            final Account receiver, final long amount,
+                                            final Currency currency, final String description) {
+        User receiverUser = registry.findUserByEmail(receiver.getOwnerEmail());
 
         Transaction receivedTransaction =
                 TransactionFactory.createReceivedMoneyTransaction(timestamp, sender.getIban(),
-                receiver.getIban(), amount, rate, currency, description);
+                receiver.getIban(), amount, currency, description);
 
-        receiverUser.addTransaction(receivedTransaction);
+        record(receiverUser, receivedTransaction);
     }
 
     /**
@@ -144,7 +143,7 @@ public class TransactionService {
                                                 final User user, final String iban) {
         Transaction failureTransaction =
                 TransactionFactory.createInsufficientFundsTransaction(timestamp, iban);
-        user.addTransaction(failureTransaction);
+        record(user, failureTransaction);
     }
 
     /**
@@ -163,7 +162,7 @@ public class TransactionService {
                 card.getCardNumber(),
                 user.getEmail()
         );
-        user.addTransaction(transaction);
+        record(user, transaction);
     }
 
     /**
@@ -176,7 +175,7 @@ public class TransactionService {
     public void addWarningTransaction(final int timestamp, final User user, final String iban) {
         Transaction warningTransaction =
                 TransactionFactory.createWarningTransaction(timestamp, iban);
-        user.addTransaction(warningTransaction);
+        record(user, warningTransaction);
     }
 
     /**
@@ -190,26 +189,26 @@ public class TransactionService {
                                                                 final String iban) {
         Transaction frozenTransaction =
                 TransactionFactory.createCardFrozenErrorTransaction(timestamp, iban);
-        user.addTransaction(frozenTransaction);
+        record(user, frozenTransaction);
     }
 
     /**
      * Creates and adds a successful split transaction to the user's transaction list.
      *
      * @param timestamp the timestamp of the transaction.
-     * @param amount the total amount of the payment.
-     * @param splitAmount the amount that each recipient receives.
+     * @param amount the total amount of the payment, in minor units.
+     * @param splitAmount the amount that each recipient receives, in minor units.
      * @param currency the currency of the transaction.
      * @param accounts the list of accounts that the payment is split between.
      * @param user the user who initiated the split payment.
      */
-    public void addSuccessSplitTransaction(final int timestamp, final double amount,
-                                           final double splitAmount, final String currency,
+    public void addSuccessSplitTransaction(final int timestamp, final long amount,
+                                           final long splitAmount, final Currency currency,
                                            final List<String> accounts, final User user) {
         Transaction splitTransaction =
                 TransactionFactory.createSuccessSplitTransaction(timestamp,
                         amount, splitAmount, currency, accounts);
-        user.addTransaction(splitTransaction);
+        record(user, splitTransaction);
     }
 
     /**
@@ -223,27 +222,52 @@ public class TransactionService {
                                                  final User user) {
         Transaction interestRateChangeTransaction =
                 TransactionFactory.createInterestRateChangeTransaction(timestamp, rate);
-        user.addTransaction(interestRateChangeTransaction);
+        record(user, interestRateChangeTransaction);
     }
 
     /**
      * Creates and adds a split payment error transaction to the user's transaction list.
      *
      * @param timestamp the timestamp of the transaction.
-     * @param splitAmount the split amount for the error.
-     * @param totalAmount the total amount of the payment.
+     * @param splitAmount the split amount for the error, in minor units.
+     * @param totalAmount the total amount of the payment, in minor units.
      * @param currency the currency of the transaction.
      * @param cheapIBAN the IBAN involved in the error.
      * @param accounts the list of accounts the payment was supposed to be split between.
      * @param user the user who encountered the error.
      */
-    public void addSplitErrorTransaction(final int timestamp, final double splitAmount,
-                                         final double totalAmount, final String currency,
+    public void addSplitErrorTransaction(final int timestamp, final long splitAmount,
+                                         final long totalAmount, final Currency currency,
                                          final String cheapIBAN, final List<String> accounts,
                                          final User user) {
         Transaction splitTransaction =
                 TransactionFactory.createSplitErrorTransaction(splitAmount,
                         timestamp, totalAmount, currency, cheapIBAN, accounts);
-        user.addTransaction(splitTransaction);
+        record(user, splitTransaction);
+    }
+
+    /**
+     * Adds a transaction to a user and bumps the version of the user's accounts it is
+     * indexed under, so their cached reports are rebuilt.
+     */
+    private void record(final User user, final Transaction transaction) {
+        user.addTransaction(transaction);
+        for (String iban : TransactionRecord.ibansOf(transaction)) {
+            bumpVersion(user, iban);
+        }
+    }
+
+    /**
+     * Bumps the version of an account, if it belongs to the user. The reports of an
+     * account only read its owner's transactions, and the accounts of other users may
+     * be in use on other shards.
+     */
+    private void bumpVersion(final User user, final String iban) {
+        if (iban != null && registry.findUserByAccount(iban) == user) {
+            Account account = registry.findAccountByIBAN(iban);
+            if (account != null) {
+                account.bumpVersion();
+            }
+        }
     }
 }
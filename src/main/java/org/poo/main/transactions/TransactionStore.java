@@ -0,0 +1,396 @@
+package org.poo.main.transactions;
+
+import org.poo.main.exchange_rate.Currency;
+import org.poo.main.exchange_rate.CurrencyTable;
+import org.poo.main.journal.SnapshotInput;
+import org.poo.main.journal.SnapshotOutput;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Columnar store of a user's transactions.
+ * Every row has a timestamp, a type code and the offset of its payload, each in its
+ * own primitive array. The payload holds only the fields of the row's kind, as ints
+ * appended to one shared array: IBANs, card numbers, commerciants and the other strings
+ * are dictionary-encoded as ids, and an amount takes two ints followed by the id of its
+ * currency, at the start of the payload. An account creation thus takes one int of
+ * payload and a transfer six, instead of a slot in every column. A row is read back as
+ * the record of its kind.
+ */
+public final class TransactionStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INT_BITS = 32;
+    private static final long LOW_BITS = 0xFFFFFFFFL;
+    private static final int AMOUNT_WIDTH = 3; // The high and low ints, then the currency
+
+    /**
+     * A paging cursor before every transaction.
+     */
+    public static final long START_CURSOR = ((long) Integer.MIN_VALUE << INT_BITS) | LOW_BITS;
+
+    private final StringDictionary dictionary = new StringDictionary();
+    private final List<List<String>> involvedAccountLists = new ArrayList<>();
+    private Currency[] currenciesById = new Currency[0];
+
+    private int size;
+    private boolean ordered = true; // Whether the rows are in timestamp order
+    private int[] timestamps = new int[INITIAL_CAPACITY];
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] offsets = new int[INITIAL_CAPACITY]; // Where each row's payload starts
+
+    private int payloadSize;
+    private int[] payload = new int[INITIAL_CAPACITY];
+
+    private final List<Transaction> view = new RowList();
+
+    /**
+     * Appends a transaction as a new row.
+     *
+     * @param transaction the transaction to store
+     * @return the row of the stored transaction
+     */
+    public int append(final Transaction transaction) {
+        if (size == timestamps.length) {
+            grow();
+        }
+        int row = size;
+
+        if (row > 0 && transaction.getTimestamp() < timestamps[row - 1]) {
+            ordered = false;
+        }
+        timestamps[row] = transaction.getTimestamp();
+        kinds[row] = (byte) transaction.getKind().ordinal();
+        offsets[row] = payloadSize;
+
+        switch (transaction) {
+            case TransactionRecord.AccountCreated record -> putString(record.accountIBAN());
+            case TransactionRecord.CardCreated record -> {
+                putString(record.cardNumber());
+                putString(record.cardHolder());
+                putString(record.accountIBAN());
+            }
+            case TransactionRecord.MoneySent record -> {
+                putAmount(record.amount(), record.currency());
+                putString(record.description());
+                putString(record.senderIBAN());
+                putString(record.receiverIBAN());
+            }
+            case TransactionRecord.MoneyReceived record -> {
+                putAmount(record.amount(), record.currency());
+                putString(record.description());
+                putString(record.senderIBAN());
+                putString(record.receiverIBAN());
+            }
+            case TransactionRecord.CardPayment record -> {
+                putAmount(record.amount(), record.currency());
+                putString(record.commerciant());
+                putString(record.accountIBAN());
+            }
+            case TransactionRecord.InsufficientFunds record -> putString(record.accountIBAN());
+            case TransactionRecord.CardDestroyed record -> {
+                putString(record.cardNumber());
+                putString(record.cardHolder());
+                putString(record.accountIBAN());
+            }
+            case TransactionRecord.MinimumBalanceWarning record ->
+                    putString(record.accountIBAN());
+            case TransactionRecord.CardFrozen record -> putString(record.accountIBAN());
+            case TransactionRecord.SplitPayment record -> {
+                putAmount(record.amount(), record.currency());
+                putAccounts(record.involvedAccounts());
+                putString(record.description());
+            }
+            case TransactionRecord.SplitPaymentError record -> {
+                putAmount(record.amount(), record.currency());
+                putAccounts(record.involvedAccounts());
+                putString(record.description());
+                putString(record.error());
+            }
+            case TransactionRecord.DeleteAccountError record -> {
+                // Only the timestamp, which every row has
+            }
+            case TransactionRecord.InterestRateChange record -> putString(record.description());
+        }
+
+        size++;
+        return row;
+    }
+
+    /**
+     * @return The number of stored transactions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row the row of the transaction
+     * @return The timestamp of the transaction, read straight from its column.
+     */
+    public int getTimestamp(final int row) {
+        return timestamps[row];
+    }
+
+    /**
+     * @param timestamp the timestamp
+     * @return The first row with a timestamp above the given one, or the size if none.
+     *         The rows are binary-searched while they are in timestamp order, as
+     *         commands arrive, and scanned otherwise.
+     */
+    public int firstRowAfter(final int timestamp) {
+        if (!ordered) {
+            int row = 0;
+            while (row < size && timestamps[row] <= timestamp) {
+                row++;
+            }
+            return row;
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param row the row of a transaction
+     * @return The paging cursor of the transaction: its timestamp in the high int and its
+     *         row in the low one. Rows are never moved, so a cursor keeps pointing at the
+     *         same transaction whatever is stored after it was handed out.
+     */
+    public long cursorOf(final int row) {
+        return ((long) timestamps[row] << INT_BITS) | (row & LOW_BITS);
+    }
+
+    /**
+     * @param cursor a paging cursor, as returned by cursorOf
+     * @return The first row after the one the cursor was taken at.
+     */
+    public int rowAfter(final long cursor) {
+        int row = cursorRow(cursor);
+        if (row < 0) {
+            return 0;
+        }
+        return row < size ? row + 1 : size;
+    }
+
+    static int cursorTimestamp(final long cursor) {
+        return (int) (cursor >> INT_BITS);
+    }
+
+    static int cursorRow(final long cursor) {
+        return (int) cursor;
+    }
+
+    /**
+     * @param row the row of the transaction
+     * @return The transaction stored on the row, as the record of its kind.
+     */
+    public TransactionRecord get(final int row) {
+        int timestamp = timestamps[row];
+        int at = offsets[row];
+        return switch (TransactionKind.fromCode(kinds[row])) {
+            case ACCOUNT_CREATED -> new TransactionRecord.AccountCreated(timestamp, string(at));
+            case CARD_CREATED -> new TransactionRecord.CardCreated(timestamp,
+                    string(at), string(at + 1), string(at + 2));
+            case MONEY_SENT -> new TransactionRecord.MoneySent(timestamp,
+                    string(at + AMOUNT_WIDTH), string(at + AMOUNT_WIDTH + 1),
+                    string(at + AMOUNT_WIDTH + 2), amount(at), currency(at));
+            case MONEY_RECEIVED -> new TransactionRecord.MoneyReceived(timestamp,
+                    string(at + AMOUNT_WIDTH), string(at + AMOUNT_WIDTH + 1),
+                    string(at + AMOUNT_WIDTH + 2), amount(at), currency(at));
+            case CARD_PAYMENT -> new TransactionRecord.CardPayment(timestamp, amount(at),
+                    currency(at), string(at + AMOUNT_WIDTH), string(at + AMOUNT_WIDTH + 1));
+            case INSUFFICIENT_FUNDS ->
+                    new TransactionRecord.InsufficientFunds(timestamp, string(at));
+            case CARD_DESTROYED -> new TransactionRecord.CardDestroyed(timestamp,
+                    string(at), string(at + 1), string(at + 2));
+            case MINIMUM_BALANCE_WARNING ->
+                    new TransactionRecord.MinimumBalanceWarning(timestamp, string(at));
+            case CARD_FROZEN -> new TransactionRecord.CardFrozen(timestamp, string(at));
+            case SPLIT_PAYMENT -> new TransactionRecord.SplitPayment(timestamp,
+                    string(at + AMOUNT_WIDTH + 1), amount(at), currency(at),
+                    accounts(at + AMOUNT_WIDTH));
+            case SPLIT_PAYMENT_ERROR -> new TransactionRecord.SplitPaymentError(timestamp,
+                    string(at + AMOUNT_WIDTH + 1), amount(at), currency(at),
+                    accounts(at + AMOUNT_WIDTH), string(at + AMOUNT_WIDTH + 2));
+            case DELETE_ACCOUNT_ERROR -> new TransactionRecord.DeleteAccountError(timestamp);
+            case INTEREST_RATE_CHANGE ->
+                    new TransactionRecord.InterestRateChange(timestamp, string(at));
+        };
+    }
+
+    /**
+     * @return A read-only list view of all stored transactions, in insertion order.
+     */
+    public List<Transaction> asList() {
+        return view;
+    }
+
+    /**
+     * Writes the store to a snapshot: the dictionary, the involved-account lists and
+     * then the row columns and the payload, each one copied in bulk.
+     *
+     * @param output the snapshot being written
+     */
+    public void writeTo(final SnapshotOutput output) {
+        dictionary.writeTo(output);
+        output.putInt(involvedAccountLists.size());
+        for (List<String> accounts : involvedAccountLists) {
+            output.putInt(accounts.size());
+            for (String iban : accounts) {
+                output.putString(iban);
+            }
+        }
+
+        output.putInt(size);
+        output.putInts(timestamps, size);
+        output.putBytes(kinds, size);
+        output.putInts(offsets, size);
+        output.putInt(payloadSize);
+        output.putInts(payload, payloadSize);
+    }
+
+    /**
+     * Reads a store written by writeTo.
+     *
+     * @param input      the snapshot being read
+     * @param currencies the bank's currencies, already restored with their ids
+     * @return the store
+     */
+    public static TransactionStore readFrom(final SnapshotInput input,
+                                            final CurrencyTable currencies) {
+        TransactionStore store = new TransactionStore();
+        store.dictionary.readFrom(input);
+        int lists = input.getInt();
+        for (int i = 0; i < lists; i++) {
+            int count = input.getInt();
+            List<String> accounts = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) {
+                accounts.add(input.getString());
+            }
+            store.involvedAccountLists.add(accounts);
+        }
+
+        int size = input.getInt();
+        int capacity = Math.max(size, INITIAL_CAPACITY);
+        store.timestamps = new int[capacity];
+        store.kinds = new byte[capacity];
+        store.offsets = new int[capacity];
+        input.getInts(store.timestamps, size);
+        input.getBytes(store.kinds, size);
+        input.getInts(store.offsets, size);
+        store.size = size;
+        for (int row = 1; row < size; row++) {
+            if (store.timestamps[row] < store.timestamps[row - 1]) {
+                store.ordered = false;
+            }
+        }
+
+        int payloadSize = input.getInt();
+        store.payload = new int[Math.max(payloadSize, INITIAL_CAPACITY)];
+        input.getInts(store.payload, payloadSize);
+        store.payloadSize = payloadSize;
+
+        store.currenciesById = new Currency[currencies.size()];
+        for (int id = 0; id < currencies.size(); id++) {
+            store.currenciesById[id] = currencies.get(id);
+        }
+        return store;
+    }
+
+    private void put(final int value) {
+        if (payloadSize == payload.length) {
+            payload = Arrays.copyOf(payload, payloadSize * 2);
+        }
+        payload[payloadSize++] = value;
+    }
+
+    private void putString(final String value) {
+        put(dictionary.encode(value));
+    }
+
+    private void putAmount(final long amount, final Currency currency) {
+        put((int) (amount >>> INT_BITS));
+        put((int) amount);
+        if (currency == null) {
+            put(StringDictionary.NULL_ID);
+            return;
+        }
+        int id = currency.getId();
+        if (id >= currenciesById.length) {
+            currenciesById = Arrays.copyOf(currenciesById, id + 1);
+        }
+        if (currenciesById[id] == null) {
+            currenciesById[id] = currency;
+        }
+        put(id);
+    }
+
+    private void putAccounts(final List<String> accounts) {
+        if (accounts == null) {
+            put(StringDictionary.NULL_ID);
+            return;
+        }
+        put(involvedAccountLists.size());
+        involvedAccountLists.add(accounts);
+    }
+
+    private String string(final int at) {
+        return dictionary.decode(payload[at]);
+    }
+
+    private long amount(final int at) {
+        return ((long) payload[at] << INT_BITS) | (payload[at + 1] & LOW_BITS);
+    }
+
+    private Currency currency(final int at) {
+        int id = payload[at + 2];
+        if (id == StringDictionary.NULL_ID) {
+            return null;
+        }
+        return currenciesById[id];
+    }
+
+    private List<String> accounts(final int at) {
+        if (payload[at] == StringDictionary.NULL_ID) {
+            return null;
+        }
+        return involvedAccountLists.get(payload[at]);
+    }
+
+    private void grow() {
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+    }
+
+    /**
+     * Read-only list over the rows of the store.
+     */
+    private final class RowList extends AbstractList<Transaction> implements RandomAccess {
+        @Override
+        public Transaction get(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return TransactionStore.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package org.poo.main.user;
 
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.poo.main.accounts.Account;
+import org.poo.main.bank.BankRegistry;
+import org.poo.main.bank.UserChangeLog;
 import org.poo.main.transactions.Transaction;
+import org.poo.main.transactions.TransactionIndex;
+import org.poo.main.transactions.TransactionStore;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -15,38 +21,65 @@ public final class User {
     private String lastName;
     private String email;
     private List<Account> accounts; // Accounts linked to the user
-    private List<Transaction> transactions; // Transactions performed by the user
+    private TransactionStore transactions; // Transactions performed by the user, by column
+    private TransactionIndex transactionIndex; // The same transactions, grouped by IBAN
+    private BankRegistry registry; // Index kept in sync with the user's accounts
+    private TokenBuffer printed; // The user as printUsers writes it, or null once changed
+    private UserChangeLog changeLog; // Told of the user's first change after a print
+    private int position; // Position among the bank's users
+    private boolean logged; // Whether the user is in the change log
+    private List<String> removedAccounts; // IBANs removed since the last print, if any
+    private List<String> removedCards; // Card numbers removed since the last print, if any
 
     public User(final String firstName, final String lastName, final String email) {
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
         this.accounts = new ArrayList<>();
-        this.transactions = new ArrayList<>();
+        this.transactions = new TransactionStore();
+        this.transactionIndex = new TransactionIndex(transactions);
     }
 
     public String getFirstName() {
         return firstName;
     }
 
+    /**
+     * Sets the user's first name.
+     *
+     * @param firstName the first name
+     */
     public void setFirstName(final String firstName) {
         this.firstName = firstName;
+        markChanged();
     }
 
     public String getLastName() {
         return lastName;
     }
 
+    /**
+     * Sets the user's last name.
+     *
+     * @param lastName the last name
+     */
     public void setLastName(final String lastName) {
         this.lastName = lastName;
+        markChanged();
     }
 
     public String getEmail() {
         return email;
     }
 
+    /**
+     * Sets the user's email address.
+     *
+     * @param email the email address
+     */
     public void setEmail(final String email) {
         this.email = email;
+        markChanged();
     }
 
     /**
@@ -56,6 +89,11 @@ public final class User {
      */
     public void addAccount(final Account account) {
         accounts.add(account);
+        account.setOwner(this);
+        account.markChanged();
+        if (registry != null) {
+            registry.registerAccount(account, this);
+        }
     }
 
     /**
@@ -64,7 +102,27 @@ public final class User {
      * @param account the account to remove
      */
     public void removeAccount(final Account account) {
-        accounts.remove(account);
+        if (!accounts.remove(account)) {
+            return;
+        }
+        account.setOwner(null);
+        if (removedAccounts == null) {
+            removedAccounts = new ArrayList<>();
+        }
+        removedAccounts.add(account.getIban());
+        markChanged();
+        if (registry != null) {
+            registry.unregisterAccount(account);
+        }
+    }
+
+    /**
+     * Attaches the user to the registry that indexes its accounts.
+     *
+     * @param registry the bank's registry
+     */
+    public void setRegistry(final BankRegistry registry) {
+        this.registry = registry;
     }
 
     public List<Account> getAccounts() {
@@ -72,17 +130,135 @@ public final class User {
     }
 
     /**
-     * Adds a transaction to the user's transaction list.
+     * Adds a transaction to the user's transaction store and to the per-IBAN index.
      *
      * @param transaction the transaction to add
      */
     public void addTransaction(final Transaction transaction) {
         if (transaction != null) {
-            transactions.add(transaction);
+            transactionIndex.add(transactions.append(transaction), transaction);
         }
     }
 
+    /**
+     * Returns the user's transactions as a read-only view over the transaction store.
+     *
+     * @return the transactions, in the order they were added
+     */
     public List<Transaction> getTransactions() {
+        return transactions.asList();
+    }
+
+    /**
+     * Returns the columnar store holding the user's transactions.
+     *
+     * @return the transaction store
+     */
+    public TransactionStore getTransactionStore() {
         return transactions;
     }
+
+    /**
+     * Replaces the user's transactions with a restored store and indexes its rows.
+     *
+     * @param store the transactions, e.g. read from a snapshot
+     */
+    public void restoreTransactions(final TransactionStore store) {
+        transactions = store;
+        transactionIndex = new TransactionIndex(store);
+        for (int row = 0; row < store.size(); row++) {
+            transactionIndex.add(row, store.get(row));
+        }
+    }
+
+    public TransactionIndex getTransactionIndex() {
+        return transactionIndex;
+    }
+
+    /**
+     * Drops the printed form of the user, after a change printUsers shows: the user's
+     * details, accounts, balances or cards. The first change after a print is logged for
+     * the next printUsersDelta.
+     */
+    public void markChanged() {
+        printed = null;
+        if (!logged && changeLog != null) {
+            logged = true;
+            changeLog.add(this);
+        }
+    }
+
+    /**
+     * Records a card removed from one of the user's accounts, for printUsersDelta.
+     *
+     * @param cardNumber the number of the card
+     */
+    public void recordRemovedCard(final String cardNumber) {
+        if (removedCards == null) {
+            removedCards = new ArrayList<>();
+        }
+        removedCards.add(cardNumber);
+    }
+
+    /**
+     * @return the IBANs of the accounts removed since the last print
+     */
+    public List<String> getRemovedAccounts() {
+        return removedAccounts == null ? Collections.emptyList() : removedAccounts;
+    }
+
+    /**
+     * @return the numbers of the cards removed from the user's accounts since the last
+     *         print
+     */
+    public List<String> getRemovedCards() {
+        return removedCards == null ? Collections.emptyList() : removedCards;
+    }
+
+    /**
+     * Forgets the changes of the user and of its accounts, once they were printed.
+     */
+    public void clearChanges() {
+        logged = false;
+        removedAccounts = null;
+        removedCards = null;
+        for (Account account : accounts) {
+            account.clearChanged();
+        }
+    }
+
+    /**
+     * Attaches the user to the bank's change log. The user counts as changed, so the
+     * next printUsersDelta lists it.
+     *
+     * @param log   the change log of the bank
+     * @param index the position of the user among the bank's users
+     */
+    public void trackChanges(final UserChangeLog log, final int index) {
+        this.changeLog = log;
+        this.position = index;
+        markChanged();
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the user as printUsers last wrote it, if nothing it shows changed since.
+     *
+     * @return the tokens of the printed user, or null if the user must be printed again
+     */
+    public TokenBuffer getPrinted() {
+        return printed;
+    }
+
+    /**
+     * Keeps the printed form of the user until the next change.
+     *
+     * @param printed the tokens of the printed user, which must not be modified afterwards
+     */
+    public void setPrinted(final TokenBuffer printed) {
+        this.printed = printed;
+    }
 }
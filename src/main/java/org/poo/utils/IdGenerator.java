@@ -0,0 +1,126 @@
+package org.poo.utils;
+
+/**
+ * Generator of IBANs and card numbers.
+ * Every BankSystem owns its own instance, so runs never share random state and
+ * independent input files can be processed at the same time.
+ * The digits come from two sequences equal to java.util.Random's, whose states can be
+ * read, so a snapshot of the bank can restore the generator in constant time to
+ * continue where it left off.
+ */
+public final class IdGenerator {
+    private static final int IBAN_SEED = 1;
+    private static final int CARD_SEED = 2;
+    private static final int DIGIT_BOUND = 10;
+    private static final int DIGIT_GENERATION = 16;
+    private static final String RO_STR = "RO";
+    private static final String POO_STR = "POOB";
+
+
+    private final DigitSequence ibanDigits = new DigitSequence(IBAN_SEED);
+    private final DigitSequence cardDigits = new DigitSequence(CARD_SEED);
+
+    /**
+     * Generates an IBAN code.
+     *
+     * @return the IBAN as String
+     */
+    public String generateIBAN() {
+        StringBuilder sb = new StringBuilder(RO_STR);
+        for (int i = 0; i < RO_STR.length(); i++) {
+            sb.append(ibanDigits.nextDigit());
+        }
+
+        sb.append(POO_STR);
+        for (int i = 0; i < DIGIT_GENERATION; i++) {
+            sb.append(ibanDigits.nextDigit());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Generates a card number.
+     *
+     * @return the card number as String
+     */
+    public String generateCardNumber() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < DIGIT_GENERATION; i++) {
+            sb.append(cardDigits.nextDigit());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Resets the seeds between runs.
+     */
+    public void reset() {
+        ibanDigits.setSeed(IBAN_SEED);
+        cardDigits.setSeed(CARD_SEED);
+    }
+
+    /**
+     * @return the state of the IBAN sequence
+     */
+    public long getIbanState() {
+        return ibanDigits.state;
+    }
+
+    /**
+     * @return the state of the card-number sequence
+     */
+    public long getCardState() {
+        return cardDigits.state;
+    }
+
+    /**
+     * Moves both sequences to states read from getIbanState and getCardState.
+     *
+     * @param ibanState the state of the IBAN sequence
+     * @param cardState the state of the card-number sequence
+     */
+    public void restore(final long ibanState, final long cardState) {
+        ibanDigits.state = ibanState & DigitSequence.MASK;
+        cardDigits.state = cardState & DigitSequence.MASK;
+    }
+
+    /**
+     * The linear congruential generator of java.util.Random, drawing digits like its
+     * nextInt(10), with a state that can be read and set.
+     */
+    private static final class DigitSequence {
+        private static final long MULTIPLIER = 0x5DEECE66DL;
+        private static final long ADDEND = 0xBL;
+        private static final int STATE_BITS = 48;
+        private static final long MASK = (1L << STATE_BITS) - 1;
+        private static final int DRAW_BITS = 31;
+
+        private long state;
+
+        DigitSequence(final long seed) {
+            setSeed(seed);
+        }
+
+        void setSeed(final long seed) {
+            state = (seed ^ MULTIPLIER) & MASK;
+        }
+
+        int nextDigit() {
+            // Draws above the largest multiple of the bound are rejected, like in Random
+            int draw = next();
+            int digit = draw % DIGIT_BOUND;
+            while (draw - digit + (DIGIT_BOUND - 1) < 0) {
+                draw = next();
+                digit = draw % DIGIT_BOUND;
+            }
+            return digit;
+        }
+
+        private int next() {
+            state = (state * MULTIPLIER + ADDEND) & MASK;
+            return (int) (state >>> (STATE_BITS - DRAW_BITS));
+        }
+    }
+}